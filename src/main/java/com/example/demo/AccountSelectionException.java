@@ -0,0 +1,18 @@
+package com.example.demo;
+
+/**
+ * Thrown when a tool call cannot be matched to a logged-in account: no account is logged in,
+ * the given account is not, or several are and none was chosen.
+ */
+public class AccountSelectionException extends Exception {
+    private final String errorCode;
+
+    public AccountSelectionException(String message, String errorCode) {
+        super(message);
+        this.errorCode = errorCode;
+    }
+
+    public String getErrorCode() {
+        return errorCode;
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.demo;
+
+/**
+ * Daily candles of one instrument as parallel primitive arrays, oldest first.
+ * Days are {@link java.time.LocalDate#toEpochDay() epoch days}.
+ */
+public record CandleSeries(int[] epochDays, double[] open, double[] high, double[] low,
+                           double[] close, long[] volume) {
+
+    private static final CandleSeries EMPTY =
+        new CandleSeries(new int[0], new double[0], new double[0], new double[0], new double[0], new long[0]);
+
+    public static CandleSeries empty() {
+        return EMPTY;
+    }
+
+    public int size() {
+        return epochDays.length;
+    }
+
+    public boolean isEmpty() {
+        return epochDays.length == 0;
+    }
+}
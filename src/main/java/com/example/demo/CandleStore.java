@@ -0,0 +1,320 @@
+package com.example.demo;
+
+import com.zerodhatech.kiteconnect.kitehttp.exceptions.KiteException;
+import com.zerodhatech.models.HistoricalData;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Local on-disk store of daily candles, one file per instrument token.
+ *
+ * <p>A file is a 16 byte header followed by fixed-width 44 byte records sorted by day:
+ * <pre>
+ * header: int magic, short version, short recordSize, int coveredFrom, int coveredTo
+ * record: int epochDay, double open, double high, double low, double close, long volume
+ * </pre>
+ * {@code coveredFrom..coveredTo} is the contiguous range of days already synced from Kite,
+ * so holidays inside it are not fetched again. Reads go through memory-mapped files and
+ * only days outside the covered range are fetched from Kite.
+ */
+@Component
+public class CandleStore {
+    private static final Logger log = LoggerFactory.getLogger(CandleStore.class);
+
+    static final int MAGIC = 0x4B434E44; // "KCND"
+    static final short VERSION = 1;
+    static final int HEADER_BYTES = 16;
+    static final int RECORD_BYTES = 44;
+
+    // Kite serves at most 2000 days of daily candles per request
+    private static final int MAX_DAYS_PER_REQUEST = 2000;
+
+    @FunctionalInterface
+    public interface CandleFetcher {
+        List<HistoricalData> fetch(String instrumentToken, LocalDate from, LocalDate to)
+            throws KiteException, IOException;
+    }
+
+    private record Candle(int epochDay, double open, double high, double low, double close, long volume) {
+    }
+
+    private record Coverage(int from, int to) {
+    }
+
+    private final Path directory;
+    private final ConcurrentHashMap<String, ReentrantReadWriteLock> locks = new ConcurrentHashMap<>();
+    private final AtomicLong reads = new AtomicLong();
+    private final AtomicLong syncs = new AtomicLong();
+    private final AtomicLong fetchedCandles = new AtomicLong();
+
+    public CandleStore(@Value("${kite.candles.dir:${user.home}/.kite-mcp/candles}") String directory) {
+        this.directory = Path.of(directory);
+    }
+
+    /**
+     * Returns the candles of {@code instrumentToken} between {@code from} and {@code to}
+     * inclusive, first fetching whatever part of the range is not on disk yet. Today's
+     * candle is still forming, so ranges are only synced up to the previous day.
+     */
+    public CandleSeries read(String instrumentToken, LocalDate from, LocalDate to, CandleFetcher fetcher)
+            throws KiteException, IOException {
+        Path file = fileFor(instrumentToken);
+        int fromDay = (int) from.toEpochDay();
+        int toDay = (int) to.toEpochDay();
+        int syncTo = Math.min(toDay, (int) MarketClock.today().minusDays(1).toEpochDay());
+        ReentrantReadWriteLock lock = locks.computeIfAbsent(instrumentToken, t -> new ReentrantReadWriteLock());
+
+        if (fromDay <= syncTo) {
+            boolean covered;
+            lock.readLock().lock();
+            try {
+                covered = covers(readCoverage(file), fromDay, syncTo);
+            } finally {
+                lock.readLock().unlock();
+            }
+            if (!covered) {
+                lock.writeLock().lock();
+                try {
+                    sync(instrumentToken, file, fromDay, syncTo, fetcher);
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+        }
+
+        lock.readLock().lock();
+        try {
+            reads.incrementAndGet();
+            return readRange(file, fromDay, toDay);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static boolean covers(Coverage coverage, int from, int to) {
+        return coverage != null && coverage.from() <= from && coverage.to() >= to;
+    }
+
+    private Path fileFor(String instrumentToken) {
+        if (instrumentToken == null || !instrumentToken.matches("\\d+")) {
+            throw new IllegalArgumentException("Invalid instrument token: " + instrumentToken);
+        }
+        return directory.resolve(instrumentToken + ".day");
+    }
+
+    private void sync(String token, Path file, int from, int to, CandleFetcher fetcher)
+            throws KiteException, IOException {
+        Coverage coverage = readCoverage(file);
+        if (covers(coverage, from, to)) {
+            return;
+        }
+        syncs.incrementAndGet();
+        Files.createDirectories(directory);
+
+        if (coverage == null) {
+            writeFile(file, new Coverage(from, to), fetch(token, from, to, fetcher), null);
+            return;
+        }
+        if (from < coverage.from()) {
+            List<Candle> older = fetch(token, from, coverage.from() - 1, fetcher);
+            ByteBuffer existing = ByteBuffer.wrap(Files.readAllBytes(file));
+            existing.position(HEADER_BYTES);
+            existing.limit(HEADER_BYTES + recordCount(existing.capacity()) * RECORD_BYTES);
+            coverage = new Coverage(from, coverage.to());
+            writeFile(file, coverage, older, existing);
+        }
+        if (to > coverage.to()) {
+            append(file, to, fetch(token, coverage.to() + 1, to, fetcher));
+        }
+    }
+
+    private List<Candle> fetch(String token, int from, int to, CandleFetcher fetcher)
+            throws KiteException, IOException {
+        List<Candle> candles = new ArrayList<>();
+        for (int start = from; start <= to; start += MAX_DAYS_PER_REQUEST) {
+            int end = Math.min(to, start + MAX_DAYS_PER_REQUEST - 1);
+            List<HistoricalData> data = fetcher.fetch(token, LocalDate.ofEpochDay(start), LocalDate.ofEpochDay(end));
+            if (data == null) {
+                continue;
+            }
+            for (HistoricalData point : data) {
+                int day = (int) LocalDate.parse(point.timeStamp.substring(0, 10)).toEpochDay();
+                if (day >= start && day <= end) {
+                    candles.add(new Candle(day, point.open, point.high, point.low, point.close, point.volume));
+                }
+            }
+        }
+        candles.sort(Comparator.comparingInt(Candle::epochDay));
+        fetchedCandles.addAndGet(candles.size());
+        log.debug("Fetched {} candles for {} between {} and {}", candles.size(), token,
+            LocalDate.ofEpochDay(from), LocalDate.ofEpochDay(to));
+        return candles;
+    }
+
+    /**
+     * Writes a complete file to a temporary sibling and moves it into place, so readers
+     * never see a half written file.
+     */
+    private void writeFile(Path file, Coverage coverage, List<Candle> candles, ByteBuffer existingRecords)
+            throws IOException {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            header.putInt(MAGIC).putShort(VERSION).putShort((short) RECORD_BYTES)
+                .putInt(coverage.from()).putInt(coverage.to()).flip();
+            writeFully(channel, header);
+            writeFully(channel, encode(candles, Integer.MIN_VALUE));
+            if (existingRecords != null) {
+                writeFully(channel, existingRecords);
+            }
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void append(Path file, int coveredTo, List<Candle> candles) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            int count = recordCount(channel.size());
+            int lastDay = Integer.MIN_VALUE;
+            if (count > 0) {
+                ByteBuffer last = ByteBuffer.allocate(4);
+                channel.read(last, HEADER_BYTES + (long) (count - 1) * RECORD_BYTES);
+                lastDay = last.flip().getInt();
+            }
+            // Records past the header's coverage can exist if an earlier append died before
+            // updating the header, so only write days after the last stored one
+            channel.position(HEADER_BYTES + (long) count * RECORD_BYTES);
+            writeFully(channel, encode(candles, lastDay));
+            channel.force(false);
+
+            ByteBuffer coverage = ByteBuffer.allocate(4);
+            coverage.putInt(coveredTo).flip();
+            channel.write(coverage, 12);
+        }
+    }
+
+    private static ByteBuffer encode(List<Candle> candles, int afterDay) {
+        ByteBuffer buffer = ByteBuffer.allocate(candles.size() * RECORD_BYTES);
+        int lastDay = afterDay;
+        for (Candle candle : candles) {
+            if (candle.epochDay() <= lastDay) {
+                continue;
+            }
+            buffer.putInt(candle.epochDay())
+                .putDouble(candle.open())
+                .putDouble(candle.high())
+                .putDouble(candle.low())
+                .putDouble(candle.close())
+                .putLong(candle.volume());
+            lastDay = candle.epochDay();
+        }
+        return buffer.flip();
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static int recordCount(long fileSize) {
+        return (int) Math.max(0, (fileSize - HEADER_BYTES) / RECORD_BYTES);
+    }
+
+    private static Coverage readCoverage(Path file) throws IOException {
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // keep reading until the header is complete or the file ends
+            }
+            header.flip();
+            if (header.remaining() < HEADER_BYTES || header.getInt() != MAGIC
+                    || header.getShort() != VERSION || header.getShort() != RECORD_BYTES) {
+                // Treated as missing, the next sync rewrites the whole file
+                log.warn("Ignoring unreadable candle file {}", file);
+                return null;
+            }
+            return new Coverage(header.getInt(), header.getInt());
+        }
+    }
+
+    private static CandleSeries readRange(Path file, int from, int to) throws IOException {
+        if (readCoverage(file) == null) {
+            return CandleSeries.empty();
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            int count = recordCount(channel.size());
+            if (count == 0) {
+                return CandleSeries.empty();
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+                HEADER_BYTES + (long) count * RECORD_BYTES);
+            int start = lowerBound(buffer, count, from);
+            int end = lowerBound(buffer, count, to + 1);
+            int n = end - start;
+
+            int[] days = new int[n];
+            double[] open = new double[n];
+            double[] high = new double[n];
+            double[] low = new double[n];
+            double[] close = new double[n];
+            long[] volume = new long[n];
+            for (int i = 0; i < n; i++) {
+                int offset = HEADER_BYTES + (start + i) * RECORD_BYTES;
+                days[i] = buffer.getInt(offset);
+                open[i] = buffer.getDouble(offset + 4);
+                high[i] = buffer.getDouble(offset + 12);
+                low[i] = buffer.getDouble(offset + 20);
+                close[i] = buffer.getDouble(offset + 28);
+                volume[i] = buffer.getLong(offset + 36);
+            }
+            return new CandleSeries(days, open, high, low, close, volume);
+        }
+    }
+
+    /** Index of the first record whose day is {@code >= day}. */
+    private static int lowerBound(ByteBuffer buffer, int count, int day) {
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (buffer.getInt(HEADER_BYTES + mid * RECORD_BYTES) < day) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("reads", reads.get());
+        stats.put("syncs", syncs.get());
+        stats.put("fetched_candles", fetchedCandles.get());
+        return stats;
+    }
+}
@@ -1,15 +1,19 @@
 package com.example.demo;
 
+import com.zerodhatech.kiteconnect.KiteConnect;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.springframework.ai.tool.ToolCallback;
 import org.springframework.ai.tool.ToolCallbacks;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
-import java.util.Arrays;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import java.util.List;
 import java.util.ArrayList;
 
 @SpringBootApplication
+@EnableScheduling
 public class DemoApplication {
 
     public static void main(String[] args) {
@@ -17,9 +21,26 @@ public class DemoApplication {
     }
 
     @Bean
-    public List<ToolCallback> mcpTools(KiteTradingService kiteTradingService) {
+    public MeterRegistry meterRegistry() {
+        return new SimpleMeterRegistry();
+    }
+
+    @Bean
+    public KiteConnectFactory kiteConnectFactory() {
+        return KiteConnect::new;
+    }
+
+    @Bean
+    public TickSourceFactory tickSourceFactory() {
+        return KiteTickerSource::new;
+    }
+
+    @Bean
+    public List<ToolCallback> mcpTools(KiteTradingService kiteTradingService, ServerMetrics serverMetrics) {
         List<ToolCallback> callbacks = new ArrayList<>();
-        callbacks.addAll(Arrays.asList(ToolCallbacks.from(kiteTradingService)));
+        for (ToolCallback callback : ToolCallbacks.from(kiteTradingService)) {
+            callbacks.add(new TimedToolCallback(callback, serverMetrics));
+        }
         return callbacks;
     }
 }
\ No newline at end of file
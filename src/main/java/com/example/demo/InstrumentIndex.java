@@ -0,0 +1,283 @@
+package com.example.demo;
+
+import com.zerodhatech.models.Instrument;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable, column-oriented view of the Kite instrument master (~100k rows).
+ *
+ * <p>Each instrument is a row index into parallel primitive arrays. Exchanges, segments and
+ * instrument types are interned into small tables and stored as byte codes. Lookups by token
+ * or by exchange and trading symbol go through open-addressing tables of row indexes, so
+ * they allocate nothing.
+ */
+public final class InstrumentIndex {
+    private static final int MAGIC = 0x4B494458; // "KIDX"
+    private static final int VERSION = 1;
+    private static final int EMPTY = -1;
+
+    private final int builtOn;
+    private final long[] tokens;
+    private final String[] symbols;
+    private final byte[] exchanges;
+    private final byte[] segments;
+    private final byte[] types;
+    private final int[] lotSizes;
+    private final double[] tickSizes;
+    private final String[] exchangeTable;
+    private final String[] segmentTable;
+    private final String[] typeTable;
+
+    private final int[] tokenSlots;
+    private final int[] symbolSlots;
+
+    private InstrumentIndex(int builtOn, long[] tokens, String[] symbols, byte[] exchanges, byte[] segments,
+                            byte[] types, int[] lotSizes, double[] tickSizes, String[] exchangeTable,
+                            String[] segmentTable, String[] typeTable) {
+        this.builtOn = builtOn;
+        this.tokens = tokens;
+        this.symbols = symbols;
+        this.exchanges = exchanges;
+        this.segments = segments;
+        this.types = types;
+        this.lotSizes = lotSizes;
+        this.tickSizes = tickSizes;
+        this.exchangeTable = exchangeTable;
+        this.segmentTable = segmentTable;
+        this.typeTable = typeTable;
+
+        int capacity = Integer.highestOneBit(Math.max(4, tokens.length) * 2) * 2;
+        this.tokenSlots = new int[capacity];
+        this.symbolSlots = new int[capacity];
+        Arrays.fill(tokenSlots, EMPTY);
+        Arrays.fill(symbolSlots, EMPTY);
+        for (int row = 0; row < tokens.length; row++) {
+            insert(tokenSlots, mix(Long.hashCode(tokens[row])), row);
+            insert(symbolSlots, symbolHash(exchanges[row], symbols[row]), row);
+        }
+    }
+
+    public static InstrumentIndex build(List<Instrument> instruments, int builtOn) {
+        int n = instruments.size();
+        long[] tokens = new long[n];
+        String[] symbols = new String[n];
+        byte[] exchanges = new byte[n];
+        byte[] segments = new byte[n];
+        byte[] types = new byte[n];
+        int[] lotSizes = new int[n];
+        double[] tickSizes = new double[n];
+        Interner exchangeInterner = new Interner();
+        Interner segmentInterner = new Interner();
+        Interner typeInterner = new Interner();
+
+        for (int row = 0; row < n; row++) {
+            Instrument instrument = instruments.get(row);
+            tokens[row] = instrument.instrument_token;
+            symbols[row] = instrument.tradingsymbol.intern();
+            exchanges[row] = exchangeInterner.code(instrument.exchange);
+            segments[row] = segmentInterner.code(instrument.segment);
+            types[row] = typeInterner.code(instrument.instrument_type);
+            lotSizes[row] = instrument.lot_size;
+            tickSizes[row] = instrument.tick_size;
+        }
+        return new InstrumentIndex(builtOn, tokens, symbols, exchanges, segments, types, lotSizes, tickSizes,
+            exchangeInterner.table(), segmentInterner.table(), typeInterner.table());
+    }
+
+    /** Row of the instrument with this token, or -1. */
+    public int rowOf(long instrumentToken) {
+        int mask = tokenSlots.length - 1;
+        for (int slot = mix(Long.hashCode(instrumentToken)) & mask; ; slot = (slot + 1) & mask) {
+            int row = tokenSlots[slot];
+            if (row == EMPTY || tokens[row] == instrumentToken) {
+                return row;
+            }
+        }
+    }
+
+    /** Row of the instrument with this exchange and trading symbol, or -1. */
+    public int rowOf(String exchange, String tradingSymbol) {
+        int exchangeCode = codeOf(exchangeTable, exchange);
+        if (exchangeCode < 0 || tradingSymbol == null) {
+            return EMPTY;
+        }
+        int mask = symbolSlots.length - 1;
+        for (int slot = symbolHash((byte) exchangeCode, tradingSymbol) & mask; ; slot = (slot + 1) & mask) {
+            int row = symbolSlots[slot];
+            if (row == EMPTY || ((exchanges[row] & 0xFF) == exchangeCode && symbols[row].equals(tradingSymbol))) {
+                return row;
+            }
+        }
+    }
+
+    public int size() {
+        return tokens.length;
+    }
+
+    /** Day the instrument master was downloaded, as an epoch day. */
+    public int getBuiltOn() {
+        return builtOn;
+    }
+
+    public long token(int row) {
+        return tokens[row];
+    }
+
+    public String tradingSymbol(int row) {
+        return symbols[row];
+    }
+
+    public String exchange(int row) {
+        return exchangeTable[exchanges[row] & 0xFF];
+    }
+
+    public String segment(int row) {
+        return segmentTable[segments[row] & 0xFF];
+    }
+
+    public String instrumentType(int row) {
+        return typeTable[types[row] & 0xFF];
+    }
+
+    public int lotSize(int row) {
+        return lotSizes[row];
+    }
+
+    public double tickSize(int row) {
+        return tickSizes[row];
+    }
+
+    public void writeTo(Path file) throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(builtOn);
+            writeTable(out, exchangeTable);
+            writeTable(out, segmentTable);
+            writeTable(out, typeTable);
+            out.writeInt(tokens.length);
+            for (int row = 0; row < tokens.length; row++) {
+                out.writeLong(tokens[row]);
+                out.writeUTF(symbols[row]);
+                out.writeByte(exchanges[row]);
+                out.writeByte(segments[row]);
+                out.writeByte(types[row]);
+                out.writeInt(lotSizes[row]);
+                out.writeDouble(tickSizes[row]);
+            }
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public static InstrumentIndex readFrom(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Unsupported instrument snapshot " + file);
+            }
+            int builtOn = in.readInt();
+            String[] exchangeTable = readTable(in);
+            String[] segmentTable = readTable(in);
+            String[] typeTable = readTable(in);
+            int n = in.readInt();
+            long[] tokens = new long[n];
+            String[] symbols = new String[n];
+            byte[] exchanges = new byte[n];
+            byte[] segments = new byte[n];
+            byte[] types = new byte[n];
+            int[] lotSizes = new int[n];
+            double[] tickSizes = new double[n];
+            for (int row = 0; row < n; row++) {
+                tokens[row] = in.readLong();
+                symbols[row] = in.readUTF().intern();
+                exchanges[row] = in.readByte();
+                segments[row] = in.readByte();
+                types[row] = in.readByte();
+                lotSizes[row] = in.readInt();
+                tickSizes[row] = in.readDouble();
+            }
+            return new InstrumentIndex(builtOn, tokens, symbols, exchanges, segments, types, lotSizes, tickSizes,
+                exchangeTable, segmentTable, typeTable);
+        }
+    }
+
+    private static void writeTable(DataOutputStream out, String[] table) throws IOException {
+        out.writeByte(table.length);
+        for (String value : table) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String[] readTable(DataInputStream in) throws IOException {
+        String[] table = new String[in.readUnsignedByte()];
+        for (int i = 0; i < table.length; i++) {
+            table[i] = in.readUTF().intern();
+        }
+        return table;
+    }
+
+    private static void insert(int[] slots, int hash, int row) {
+        int mask = slots.length - 1;
+        int slot = hash & mask;
+        while (slots[slot] != EMPTY) {
+            slot = (slot + 1) & mask;
+        }
+        slots[slot] = row;
+    }
+
+    private static int codeOf(String[] table, String value) {
+        for (int i = 0; i < table.length; i++) {
+            if (table[i].equals(value)) {
+                return i;
+            }
+        }
+        return EMPTY;
+    }
+
+    private static int symbolHash(byte exchangeCode, String symbol) {
+        return mix(symbol.hashCode() * 31 + exchangeCode);
+    }
+
+    private static int mix(int hash) {
+        hash *= 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+    /** Assigns byte codes to the few distinct exchanges, segments and instrument types. */
+    private static final class Interner {
+        private final Map<String, Byte> codes = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+
+        byte code(String value) {
+            String key = value == null ? "" : value;
+            Byte code = codes.get(key);
+            if (code == null) {
+                if (values.size() == 255) {
+                    throw new IllegalStateException("Too many distinct values: " + key);
+                }
+                code = (byte) values.size();
+                codes.put(key, code);
+                values.add(key.intern());
+            }
+            return code;
+        }
+
+        String[] table() {
+            return values.toArray(new String[0]);
+        }
+    }
+}
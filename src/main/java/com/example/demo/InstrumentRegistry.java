@@ -0,0 +1,158 @@
+package com.example.demo;
+
+import com.zerodhatech.kiteconnect.kitehttp.exceptions.KiteException;
+import com.zerodhatech.models.Instrument;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Holds the current {@link InstrumentIndex}. At startup the last persisted snapshot is
+ * loaded in the background; a fresh instrument master is downloaded once a day and
+ * whenever the snapshot is older than today.
+ */
+@Component
+public class InstrumentRegistry {
+    private static final Logger log = LoggerFactory.getLogger(InstrumentRegistry.class);
+    private static final String UNCLASSIFIED = "UNCLASSIFIED";
+
+    private final KiteExecutor kiteExecutor;
+    private final Path snapshotFile;
+    private final String sectorFile;
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+
+    private volatile InstrumentIndex index;
+    private volatile KiteCall<List<Instrument>> source;
+    private Map<String, String> sectors = Map.of();
+
+    public InstrumentRegistry(KiteExecutor kiteExecutor,
+                              @Value("${kite.instruments.snapshot:${user.home}/.kite-mcp/instruments.bin}") String snapshotFile,
+                              @Value("${kite.instruments.sector-file:}") String sectorFile) {
+        this.kiteExecutor = kiteExecutor;
+        this.snapshotFile = Path.of(snapshotFile);
+        this.sectorFile = sectorFile;
+    }
+
+    @PostConstruct
+    public void init() {
+        kiteExecutor.getExecutor().execute(this::loadSnapshot);
+        sectors = loadSectors();
+    }
+
+    /** The loaded index, or null while the first snapshot or download is still pending. */
+    public InstrumentIndex current() {
+        return index;
+    }
+
+    /** Sets where the instrument master is downloaded from. */
+    public void setSource(KiteCall<List<Instrument>> source) {
+        this.source = source;
+    }
+
+    /** Downloads the instrument master in the background if the index is missing or from a previous day. */
+    public void refreshIfStale() {
+        InstrumentIndex current = index;
+        if (current == null || current.getBuiltOn() < today()) {
+            kiteExecutor.getExecutor().execute(this::refresh);
+        }
+    }
+
+    // Kite publishes the day's instrument master shortly after 8 AM IST
+    @Scheduled(cron = "${kite.instruments.refresh-cron:0 45 8 * * MON-FRI}", zone = "Asia/Kolkata")
+    public void refresh() {
+        KiteCall<List<Instrument>> currentSource = source;
+        if (currentSource == null || !refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long start = System.nanoTime();
+            List<Instrument> instruments = currentSource.call();
+            InstrumentIndex fresh = InstrumentIndex.build(instruments, today());
+            synchronized (this) {
+                index = fresh;
+            }
+            log.info("Loaded {} instruments in {} ms", fresh.size(), (System.nanoTime() - start) / 1_000_000);
+            fresh.writeTo(snapshotFile);
+        } catch (KiteException | IOException e) {
+            log.warn("Could not refresh instrument master: {}", e.getMessage());
+        } finally {
+            refreshing.set(false);
+        }
+    }
+
+    private void loadSnapshot() {
+        if (!Files.exists(snapshotFile)) {
+            return;
+        }
+        try {
+            long start = System.nanoTime();
+            InstrumentIndex loaded = InstrumentIndex.readFrom(snapshotFile);
+            synchronized (this) {
+                // A download that finished first is newer than the snapshot
+                if (index == null) {
+                    index = loaded;
+                }
+            }
+            log.info("Loaded instrument snapshot with {} instruments in {} ms", loaded.size(),
+                (System.nanoTime() - start) / 1_000_000);
+        } catch (IOException e) {
+            log.warn("Could not read instrument snapshot {}: {}", snapshotFile, e.getMessage());
+        }
+    }
+
+    /**
+     * Kite's instrument master has no sector information, so sectors come from an optional
+     * CSV file of {@code SYMBOL,SECTOR} lines.
+     */
+    private Map<String, String> loadSectors() {
+        if (sectorFile == null || sectorFile.isBlank()) {
+            return Map.of();
+        }
+        Map<String, String> loaded = new HashMap<>();
+        try (BufferedReader reader = Files.newBufferedReader(Path.of(sectorFile))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int comma = line.indexOf(',');
+                if (line.isBlank() || line.startsWith("#") || comma < 0) {
+                    continue;
+                }
+                loaded.put(line.substring(0, comma).trim().intern(), line.substring(comma + 1).trim().intern());
+            }
+        } catch (IOException e) {
+            log.warn("Could not read sector file {}: {}", sectorFile, e.getMessage());
+        }
+        return loaded;
+    }
+
+    public String sectorOf(String tradingSymbol) {
+        return sectors.getOrDefault(tradingSymbol, UNCLASSIFIED);
+    }
+
+    public Map<String, Object> stats() {
+        InstrumentIndex current = index;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("loaded", current != null);
+        stats.put("instruments", current != null ? current.size() : 0);
+        stats.put("built_on", current != null ? LocalDate.ofEpochDay(current.getBuiltOn()).toString() : null);
+        stats.put("sectors", sectors.size());
+        return stats;
+    }
+
+    private static int today() {
+        return (int) MarketClock.today().toEpochDay();
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.demo;
+
+import com.zerodhatech.kiteconnect.kitehttp.exceptions.KiteException;
+
+import java.io.IOException;
+
+/**
+ * A single blocking call against the Kite API, e.g. {@code () -> kiteConnect.getHoldings()}.
+ */
+@FunctionalInterface
+public interface KiteCall<T> {
+    T call() throws KiteException, IOException;
+}
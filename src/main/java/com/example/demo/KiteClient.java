@@ -0,0 +1,122 @@
+package com.example.demo;
+
+import com.zerodhatech.kiteconnect.KiteConnect;
+import com.zerodhatech.kiteconnect.kitehttp.exceptions.KiteException;
+import com.zerodhatech.models.HistoricalData;
+import com.zerodhatech.models.Holding;
+import com.zerodhatech.models.Instrument;
+import com.zerodhatech.models.Margin;
+import com.zerodhatech.models.Order;
+import com.zerodhatech.models.OrderParams;
+import com.zerodhatech.models.Position;
+import com.zerodhatech.models.User;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Entry point for all Kite REST calls. Every call is rate limited by its
+ * {@link KiteEndpoint} class, and identical concurrent reads share one upstream call.
+ * Each call is timed under the KiteConnect method it invokes.
+ */
+public class KiteClient {
+    private final KiteConnect kiteConnect;
+    private final KiteRateLimiter rateLimiter;
+    private final ServerMetrics metrics;
+    private final SingleFlight singleFlight = new SingleFlight();
+
+    public KiteClient(KiteConnect kiteConnect, KiteRateLimiter rateLimiter, ServerMetrics metrics) {
+        this.kiteConnect = kiteConnect;
+        this.rateLimiter = rateLimiter;
+        this.metrics = metrics;
+    }
+
+    public void bindMetrics(ServerMetrics metrics, String account) {
+        metrics.counter("kite.client.upstream.reads", singleFlight, SingleFlight::getCalls, "account", account);
+        metrics.counter("kite.client.coalesced.reads", singleFlight, SingleFlight::getCoalesced, "account", account);
+    }
+
+    public KiteConnect getKiteConnect() {
+        return kiteConnect;
+    }
+
+    public User generateSession(String requestToken, String apiSecret) throws KiteException, IOException {
+        return call(KiteEndpoint.PORTFOLIO, "generateSession",
+            () -> kiteConnect.generateSession(requestToken, apiSecret));
+    }
+
+    public List<Holding> getHoldings() throws KiteException, IOException {
+        return read(KiteEndpoint.PORTFOLIO, "holdings", "getHoldings", kiteConnect::getHoldings);
+    }
+
+    public Map<String, List<Position>> getPositions() throws KiteException, IOException {
+        return read(KiteEndpoint.PORTFOLIO, "positions", "getPositions", kiteConnect::getPositions);
+    }
+
+    public Margin getMargins(String segment) throws KiteException, IOException {
+        return read(KiteEndpoint.PORTFOLIO, "margins:" + segment, "getMargins",
+            () -> kiteConnect.getMargins(segment));
+    }
+
+    public List<Order> getOrders() throws KiteException, IOException {
+        return read(KiteEndpoint.PORTFOLIO, "orders", "getOrders", kiteConnect::getOrders);
+    }
+
+    /**
+     * Daily candles between two trading dates ({@link MarketClock}), inclusive. Kite reads the
+     * bounds as market time, but KiteConnect formats them in the JVM's time zone, so they are
+     * built in that zone to come out as the same wall-clock dates.
+     */
+    public List<HistoricalData> getDailyCandles(String instrumentToken, LocalDate from, LocalDate to)
+            throws KiteException, IOException {
+        Date fromDate = kiteTime(from.atStartOfDay());
+        Date toDate = kiteTime(to.atTime(23, 59, 59));
+        HistoricalData data = read(KiteEndpoint.HISTORICAL, "candles:" + instrumentToken + ":" + from + ":" + to,
+            "getHistoricalData", () -> kiteConnect.getHistoricalData(fromDate, toDate, instrumentToken, "day", false, false));
+        return data != null && data.dataArrayList != null ? data.dataArrayList : List.of();
+    }
+
+    /** A Date that KiteConnect formats as {@code marketTime}. */
+    static Date kiteTime(LocalDateTime marketTime) {
+        return Date.from(marketTime.atZone(ZoneId.systemDefault()).toInstant());
+    }
+
+    public List<Instrument> getInstruments() throws KiteException, IOException {
+        return read(KiteEndpoint.PORTFOLIO, "instruments", "getInstruments", kiteConnect::getInstruments);
+    }
+
+    public List<Order> getOrderHistory(String orderId) throws KiteException, IOException {
+        return read(KiteEndpoint.PORTFOLIO, "orderHistory:" + orderId, "getOrderHistory",
+            () -> kiteConnect.getOrderHistory(orderId));
+    }
+
+    public Order placeOrder(OrderParams orderParams, String variety) throws KiteException, IOException {
+        return call(KiteEndpoint.ORDER, "placeOrder", () -> kiteConnect.placeOrder(orderParams, variety));
+    }
+
+    private <T> T read(KiteEndpoint endpoint, String key, String method, KiteCall<T> kiteCall)
+            throws KiteException, IOException {
+        return singleFlight.execute(key, () -> call(endpoint, method, kiteCall));
+    }
+
+    private <T> T call(KiteEndpoint endpoint, String method, KiteCall<T> kiteCall) throws KiteException, IOException {
+        long queuedAt = System.nanoTime();
+        rateLimiter.acquire(endpoint);
+        metrics.recordRateLimitWait(endpoint, System.nanoTime() - queuedAt);
+        return metrics.timeKiteCall(method, kiteCall);
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("upstream_reads", singleFlight.getCalls());
+        stats.put("coalesced_reads", singleFlight.getCoalesced());
+        stats.put("rate_limiter", rateLimiter.stats());
+        return stats;
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.demo;
+
+import com.zerodhatech.kiteconnect.KiteConnect;
+
+/**
+ * Creates the {@link KiteConnect} for a new account session.
+ */
+@FunctionalInterface
+public interface KiteConnectFactory {
+    KiteConnect create(String apiKey);
+}
@@ -0,0 +1,16 @@
+package com.example.demo;
+
+/**
+ * Rate limit classes of the Kite API. Each class gets its own token bucket in
+ * {@link KiteRateLimiter}.
+ */
+public enum KiteEndpoint {
+    /** Market quotes, limited by Kite to 1 request per second. */
+    QUOTE,
+    /** Historical candles, 3 requests per second. */
+    HISTORICAL,
+    /** Order placement, modification and cancellation, 10 requests per second. */
+    ORDER,
+    /** Portfolio, order book and every other endpoint, 10 requests per second. */
+    PORTFOLIO
+}
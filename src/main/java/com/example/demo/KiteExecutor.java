@@ -0,0 +1,149 @@
+package com.example.demo;
+
+import com.zerodhatech.kiteconnect.kitehttp.exceptions.KiteException;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Shared execution layer for issuing independent Kite calls concurrently.
+ * Runs on virtual threads when the JVM supports them (Java 21+), otherwise on
+ * a bounded pool of daemon threads.
+ *
+ * <p>Candle syncs get a small pool of their own: a first sync of a large portfolio queues a
+ * request per holding at Kite's 3 per second historical limit, and must not hold the threads
+ * that orders and portfolio calls need.
+ */
+@Component
+public class KiteExecutor {
+    private static final Logger log = LoggerFactory.getLogger(KiteExecutor.class);
+
+    private final ExecutorService executor;
+    private final ExecutorService historicalExecutor;
+    private final long callTimeoutMs;
+
+    public KiteExecutor(@Value("${kite.async.max-threads:32}") int maxThreads,
+                        @Value("${kite.async.historical-threads:4}") int historicalThreads,
+                        @Value("${kite.async.call-timeout-ms:10000}") long callTimeoutMs) {
+        this.executor = createExecutor(maxThreads);
+        this.historicalExecutor = newPool("kite-historical-", historicalThreads);
+        this.callTimeoutMs = callTimeoutMs;
+    }
+
+    private static ExecutorService createExecutor(int maxThreads) {
+        try {
+            ExecutorService virtual = (ExecutorService) Executors.class
+                .getMethod("newVirtualThreadPerTaskExecutor")
+                .invoke(null);
+            log.info("Kite calls will run on virtual threads");
+            return virtual;
+        } catch (ReflectiveOperationException e) {
+            log.info("Virtual threads not available, using a pool of {} threads for Kite calls", maxThreads);
+        }
+        return newPool("kite-io-", maxThreads);
+    }
+
+    private static ExecutorService newPool(String namePrefix, int threads) {
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, namePrefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(), threadFactory);
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    public ExecutorService getExecutor() {
+        return executor;
+    }
+
+    public <T> CompletableFuture<T> submit(KiteCall<T> call) {
+        return submit(call, executor);
+    }
+
+    /** Runs a candle sync or another historical data call on the pool reserved for them. */
+    public <T> CompletableFuture<T> submitHistorical(KiteCall<T> call) {
+        return submit(call, historicalExecutor);
+    }
+
+    private static <T> CompletableFuture<T> submit(KiteCall<T> call, ExecutorService executor) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return call.call();
+            } catch (KiteException e) {
+                throw new CompletionException(e);
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        }, executor);
+    }
+
+    /** Waits for a call started with {@link #submit} for up to {@code kite.async.call-timeout-ms}. */
+    public <T> T await(CompletableFuture<T> future) throws KiteException, IOException {
+        return await(future, callTimeoutMs);
+    }
+
+    /**
+     * Waits for a call started with {@link #submit} and rethrows its failure the
+     * same way a direct {@code kiteConnect} call would. A call that does not finish
+     * within {@code timeoutMs} surfaces as a {@link SocketTimeoutException}.
+     */
+    public <T> T await(CompletableFuture<T> future, long timeoutMs) throws KiteException, IOException {
+        try {
+            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new SocketTimeoutException("Kite call did not complete within " + timeoutMs + " ms");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for Kite call");
+        } catch (ExecutionException e) {
+            throw rethrow(e.getCause());
+        }
+    }
+
+    static IOException rethrow(Throwable cause) throws KiteException {
+        if (cause instanceof CompletionException && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        if (cause instanceof KiteException kiteException) {
+            throw kiteException;
+        }
+        if (cause instanceof IOException ioException) {
+            return ioException;
+        }
+        if (cause instanceof RuntimeException runtimeException) {
+            throw runtimeException;
+        }
+        if (cause instanceof Error error) {
+            throw error;
+        }
+        return new IOException(cause);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+        historicalExecutor.shutdownNow();
+    }
+}
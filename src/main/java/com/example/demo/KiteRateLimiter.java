@@ -0,0 +1,76 @@
+package com.example.demo;
+
+import java.io.InterruptedIOException;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Client-side rate limiter that every outgoing Kite call passes through. Callers
+ * queue for up to {@code maxWaitMs} instead of hitting Kite's 429 responses.
+ */
+public class KiteRateLimiter {
+    private final Map<KiteEndpoint, TokenBucket> buckets = new EnumMap<>(KiteEndpoint.class);
+    private final Map<KiteEndpoint, AtomicLong> rejected = new EnumMap<>(KiteEndpoint.class);
+    private final Map<KiteEndpoint, AtomicLong> acquired = new EnumMap<>(KiteEndpoint.class);
+    private final Map<KiteEndpoint, Long> maxWaitMs = new EnumMap<>(KiteEndpoint.class);
+
+    public KiteRateLimiter(Map<KiteEndpoint, TokenBucket> buckets, long defaultMaxWaitMs) {
+        this.buckets.putAll(buckets);
+        for (KiteEndpoint endpoint : KiteEndpoint.values()) {
+            if (!this.buckets.containsKey(endpoint)) {
+                throw new IllegalArgumentException("No rate limit configured for " + endpoint);
+            }
+            rejected.put(endpoint, new AtomicLong());
+            acquired.put(endpoint, new AtomicLong());
+            maxWaitMs.put(endpoint, defaultMaxWaitMs);
+        }
+    }
+
+    /**
+     * Overrides how long callers of one endpoint class may queue, e.g. for slow
+     * endpoints where a long queue is expected.
+     */
+    public void setMaxWaitMs(KiteEndpoint endpoint, long maxWaitMs) {
+        this.maxWaitMs.put(endpoint, maxWaitMs);
+    }
+
+    public void acquire(KiteEndpoint endpoint) throws RateLimitedException, InterruptedIOException {
+        long maxWait = maxWaitMs.get(endpoint);
+        try {
+            if (!buckets.get(endpoint).acquire(maxWait)) {
+                rejected.get(endpoint).incrementAndGet();
+                throw new RateLimitedException(endpoint, maxWait);
+            }
+            acquired.get(endpoint).incrementAndGet();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for " + endpoint + " rate limit");
+        }
+    }
+
+    public void bindMetrics(ServerMetrics metrics, String account) {
+        for (KiteEndpoint endpoint : KiteEndpoint.values()) {
+            String tag = endpoint.name().toLowerCase();
+            metrics.counter("kite.ratelimit.acquired", acquired.get(endpoint), AtomicLong::get,
+                "account", account, "endpoint", tag);
+            metrics.counter("kite.ratelimit.rejected", rejected.get(endpoint), AtomicLong::get,
+                "account", account, "endpoint", tag);
+            metrics.gauge("kite.ratelimit.available.tokens", buckets.get(endpoint)::availableTokens,
+                "account", account, "endpoint", tag);
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        for (KiteEndpoint endpoint : KiteEndpoint.values()) {
+            Map<String, Object> bucket = new LinkedHashMap<>();
+            bucket.put("acquired", acquired.get(endpoint).get());
+            bucket.put("rejected", rejected.get(endpoint).get());
+            bucket.put("available_tokens", buckets.get(endpoint).availableTokens());
+            stats.put(endpoint.name().toLowerCase(), bucket);
+        }
+        return stats;
+    }
+}
@@ -0,0 +1,155 @@
+package com.example.demo;
+
+import com.zerodhatech.models.User;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Everything that belongs to one Kite account: its KiteConnect and client with their own rate
+ * limits, portfolio cache, order book and tracker, live price stream and row versions. Sessions share no
+ * locks with each other, so tool calls for different accounts do not wait on one another.
+ */
+public class KiteSession {
+    private final KiteClient client;
+    private final KiteRateLimiter rateLimiter;
+    private final PortfolioCache portfolioCache;
+    private final OrderBook orderBook = new OrderBook();
+    private final OrderTracker orderTracker;
+    private final AtomicLong rowClock = new AtomicLong(System.currentTimeMillis());
+    private final RowVersions<PortfolioRows.HoldingRow> holdingVersions =
+        new RowVersions<>(rowClock, PortfolioRows.HOLDING_SCHEMA.key());
+    private final RowVersions<PortfolioRows.NetPositionRow> netPositionVersions =
+        new RowVersions<>(rowClock, PortfolioRows.NET_POSITION_SCHEMA.key());
+    private final RowVersions<PortfolioRows.DayPositionRow> dayPositionVersions =
+        new RowVersions<>(rowClock, PortfolioRows.DAY_POSITION_SCHEMA.key());
+    private volatile String accountId;
+    private volatile long loggedInAtMillis;
+    private volatile boolean expired;
+    private volatile TickStream tickStream;
+
+    public KiteSession(KiteClient client, KiteRateLimiter rateLimiter, PortfolioCache portfolioCache,
+                       OrderTracker orderTracker) {
+        this.client = client;
+        this.rateLimiter = rateLimiter;
+        this.portfolioCache = portfolioCache;
+        this.orderTracker = orderTracker;
+    }
+
+    /** Attaches the tokens of a generated session; the account ID is the Kite user ID. */
+    public void activate(User user) {
+        activate(user.userId, user.accessToken, user.publicToken, System.currentTimeMillis());
+    }
+
+    /** Attaches the tokens of an earlier login, e.g. one restored from the warm state. */
+    public void activate(String accountId, String accessToken, String publicToken, long loggedInAtMillis) {
+        client.getKiteConnect().setAccessToken(accessToken);
+        client.getKiteConnect().setPublicToken(publicToken);
+        this.accountId = accountId;
+        this.loggedInAtMillis = loggedInAtMillis;
+    }
+
+    public boolean isActive() {
+        String accessToken = client.getKiteConnect().getAccessToken();
+        return !expired && accessToken != null && !accessToken.isEmpty();
+    }
+
+    /** Called from the KiteConnect session expiry hook; the account has to log in again. */
+    public void expire() {
+        expired = true;
+        close();
+    }
+
+    public KiteClient client() {
+        return client;
+    }
+
+    public PortfolioCache portfolioCache() {
+        return portfolioCache;
+    }
+
+    public OrderBook orderBook() {
+        return orderBook;
+    }
+
+    public OrderTracker orderTracker() {
+        return orderTracker;
+    }
+
+    /** True while the ticker is connected and pushing prices and order updates. */
+    public boolean isStreamLive() {
+        TickStream stream = tickStream;
+        return stream != null && stream.isLive();
+    }
+
+    public RowVersions<PortfolioRows.HoldingRow> holdingVersions() {
+        return holdingVersions;
+    }
+
+    public RowVersions<PortfolioRows.NetPositionRow> netPositionVersions() {
+        return netPositionVersions;
+    }
+
+    public RowVersions<PortfolioRows.DayPositionRow> dayPositionVersions() {
+        return dayPositionVersions;
+    }
+
+    public String accountId() {
+        return accountId;
+    }
+
+    public String accessToken() {
+        return client.getKiteConnect().getAccessToken();
+    }
+
+    public WarmStateStore.AccountState warmState() {
+        return new WarmStateStore.AccountState(accountId, accessToken(), client.getKiteConnect().getPublicToken(),
+            loggedInAtMillis, portfolioCache.contents());
+    }
+
+    public TickStream tickStream() {
+        return tickStream;
+    }
+
+    /** Replaces the live price stream, stopping the previous one. */
+    public void setTickStream(TickStream stream) {
+        TickStream previous = tickStream;
+        tickStream = stream;
+        if (previous != null) {
+            previous.stop();
+        }
+    }
+
+    public void close() {
+        setTickStream(null);
+    }
+
+    public void bindMetrics(ServerMetrics metrics) {
+        portfolioCache.bindMetrics(metrics, accountId);
+        rateLimiter.bindMetrics(metrics, accountId);
+        client.bindMetrics(metrics, accountId);
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>(portfolioCache.stats());
+        stats.put("kite_client", client.stats());
+        stats.put("order_book", orderBook.stats());
+        stats.put("order_tracker", orderTracker.stats());
+        TickStream stream = tickStream;
+        if (stream != null) {
+            stats.put("tick_stream", stream.stats());
+        }
+        return stats;
+    }
+
+    public Map<String, Object> describe() {
+        Map<String, Object> account = new LinkedHashMap<>();
+        account.put("account_id", accountId);
+        account.put("active", isActive());
+        account.put("logged_in_at", Instant.ofEpochMilli(loggedInAtMillis).toString());
+        account.put("live_prices", isStreamLive());
+        return account;
+    }
+}
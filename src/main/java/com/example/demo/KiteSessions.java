@@ -0,0 +1,103 @@
+package com.example.demo;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Logged-in accounts by Kite user ID. Lookups go through a {@link ConcurrentHashMap}, so
+ * resolving an account never blocks calls for other accounts.
+ */
+@Component
+public class KiteSessions {
+    private final Map<String, KiteSession> sessions = new ConcurrentHashMap<>();
+    private final ServerMetrics serverMetrics;
+
+    public KiteSessions(ServerMetrics serverMetrics) {
+        this.serverMetrics = serverMetrics;
+    }
+
+    /** Adds an activated session, replacing and closing an earlier session of the same account. */
+    public void register(KiteSession session) {
+        KiteSession previous = sessions.put(session.accountId(), session);
+        if (previous != null && previous != session) {
+            previous.close();
+        }
+        // Meters of the previous session would keep reading its caches and limiter
+        serverMetrics.removeTagged("account", session.accountId());
+        session.bindMetrics(serverMetrics);
+    }
+
+    /** Drops a session after Kite reported it expired, unless it was already replaced. */
+    public void remove(KiteSession session) {
+        String accountId = session.accountId();
+        if (accountId != null && sessions.remove(accountId, session)) {
+            serverMetrics.removeTagged("account", accountId);
+        }
+    }
+
+    /**
+     * The session for {@code accountId}, or the only logged-in session when no account is given.
+     */
+    public KiteSession resolve(String accountId) throws AccountSelectionException {
+        if (accountId != null && !accountId.isBlank()) {
+            KiteSession session = sessions.get(accountId.trim());
+            if (session == null || !session.isActive()) {
+                throw new AccountSelectionException("Account " + accountId + " is not logged in",
+                    "UNKNOWN_ACCOUNT");
+            }
+            return session;
+        }
+        KiteSession only = null;
+        for (KiteSession session : sessions.values()) {
+            if (session.isActive()) {
+                if (only != null) {
+                    throw new AccountSelectionException("Several accounts are logged in, "
+                        + "please pass accountId, one of " + accountIds(), "ACCOUNT_REQUIRED");
+                }
+                only = session;
+            }
+        }
+        if (only == null) {
+            throw new AccountSelectionException("Kite session is not active. Please login first.",
+                "SESSION_EXPIRED");
+        }
+        return only;
+    }
+
+    /** Any logged-in session, for account independent data such as the instrument master. */
+    public KiteSession anyActive() {
+        for (KiteSession session : sessions.values()) {
+            if (session.isActive()) {
+                return session;
+            }
+        }
+        return null;
+    }
+
+    public List<KiteSession> all() {
+        return new ArrayList<>(sessions.values());
+    }
+
+    public List<String> accountIds() {
+        List<String> ids = new ArrayList<>();
+        for (KiteSession session : sessions.values()) {
+            if (session.isActive()) {
+                ids.add(session.accountId());
+            }
+        }
+        ids.sort(null);
+        return ids;
+    }
+
+    @PreDestroy
+    public void closeAll() {
+        for (KiteSession session : sessions.values()) {
+            session.close();
+        }
+    }
+}
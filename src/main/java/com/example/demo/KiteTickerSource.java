@@ -0,0 +1,126 @@
+package com.example.demo;
+
+import com.zerodhatech.kiteconnect.kitehttp.exceptions.KiteException;
+import com.zerodhatech.models.Tick;
+import com.zerodhatech.ticker.KiteTicker;
+import com.zerodhatech.ticker.OnError;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * {@link TickSource} backed by Kite's websocket ticker, streaming in LTP mode.
+ */
+public class KiteTickerSource implements TickSource {
+    private static final Logger log = LoggerFactory.getLogger(KiteTickerSource.class);
+
+    private final KiteTicker ticker;
+    private final Set<Long> subscribed = new HashSet<>();
+    private OrderListener orderListener;
+
+    public KiteTickerSource(String accessToken, String apiKey) {
+        this.ticker = new KiteTicker(accessToken, apiKey);
+    }
+
+    @Override
+    public void setOrderListener(OrderListener listener) {
+        this.orderListener = listener;
+    }
+
+    @Override
+    public void start(TickListener listener) {
+        ticker.setOnTickerArrivalListener(ticks -> {
+            for (Tick tick : ticks) {
+                listener.onTick(tick.getInstrumentToken(), tick.getLastTradedPrice());
+            }
+        });
+        OrderListener orders = orderListener;
+        if (orders != null) {
+            ticker.setOnOrderUpdateListener(orders::onOrderUpdate);
+        }
+        ticker.setOnConnectedListener(() -> {
+            log.info("Kite ticker connected");
+            resubscribe();
+        });
+        ticker.setOnDisconnectedListener(() -> log.warn("Kite ticker disconnected"));
+        ticker.setOnErrorListener(new OnError() {
+            @Override
+            public void onError(Exception exception) {
+                log.warn("Kite ticker error: {}", exception.getMessage());
+            }
+
+            @Override
+            public void onError(KiteException kiteException) {
+                log.warn("Kite ticker error: {}", kiteException.getMessage());
+            }
+
+            @Override
+            public void onError(String error) {
+                log.warn("Kite ticker error: {}", error);
+            }
+        });
+        try {
+            ticker.setTryReconnection(true);
+            ticker.setMaximumRetries(50);
+            ticker.setMaximumRetryInterval(30);
+        } catch (KiteException e) {
+            log.warn("Could not enable ticker reconnection: {}", e.getMessage());
+        }
+        ticker.connect();
+    }
+
+    @Override
+    public synchronized void subscribe(long[] instrumentTokens) {
+        Set<Long> wanted = new HashSet<>();
+        for (long token : instrumentTokens) {
+            wanted.add(token);
+        }
+        ArrayList<Long> removed = new ArrayList<>();
+        for (Long token : subscribed) {
+            if (!wanted.contains(token)) {
+                removed.add(token);
+            }
+        }
+        ArrayList<Long> added = new ArrayList<>();
+        for (Long token : wanted) {
+            if (!subscribed.contains(token)) {
+                added.add(token);
+            }
+        }
+        subscribed.clear();
+        subscribed.addAll(wanted);
+
+        if (!ticker.isConnectionOpen()) {
+            // Sent once the connection is up
+            return;
+        }
+        if (!removed.isEmpty()) {
+            ticker.unsubscribe(removed);
+        }
+        if (!added.isEmpty()) {
+            ticker.subscribe(added);
+            ticker.setMode(added, KiteTicker.modeLTP);
+        }
+    }
+
+    private synchronized void resubscribe() {
+        if (!subscribed.isEmpty()) {
+            ArrayList<Long> tokens = new ArrayList<>(subscribed);
+            ticker.subscribe(tokens);
+            ticker.setMode(tokens, KiteTicker.modeLTP);
+        }
+    }
+
+    @Override
+    public boolean isConnected() {
+        return ticker.isConnectionOpen();
+    }
+
+    @Override
+    public void stop() {
+        ticker.disconnect();
+    }
+}
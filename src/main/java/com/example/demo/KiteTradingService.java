@@ -2,23 +2,40 @@ package com.example.demo;
 
 import com.zerodhatech.kiteconnect.KiteConnect;
 import com.zerodhatech.kiteconnect.kitehttp.exceptions.KiteException;
+import com.zerodhatech.kiteconnect.kitehttp.exceptions.TokenException;
 import com.zerodhatech.kiteconnect.utils.Constants;
 import com.zerodhatech.models.*;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.ai.tool.annotation.Tool;
+import org.springframework.ai.tool.annotation.ToolParam;
 import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.json.JSONException;
 
 import java.io.IOException;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
 
 @Service
 public class KiteTradingService {
-    private KiteConnect kiteConnect;
-    private String accessToken;
+    private static final String ACCOUNT_ID_DESCRIPTION =
+        "Kite user ID of the account to use, only needed while several accounts are logged in";
+
+    private final RiskEngine riskEngine = new RiskEngine(ForkJoinPool.commonPool());
+    private final KiteExecutor kiteExecutor;
+    private final CandleStore candleStore;
+    private final InstrumentRegistry instrumentRegistry;
+    private final ServerMetrics serverMetrics;
+    private final KiteSessions sessions;
+    private final KiteConnectFactory kiteConnectFactory;
+    private final TickSourceFactory tickSourceFactory;
+    private final WarmStateStore warmStateStore;
+    private volatile boolean warmStarted;
 
     private static final Logger log = LoggerFactory.getLogger(KiteTradingService.class);
 
@@ -28,46 +45,285 @@ public class KiteTradingService {
     @Value("${kite.api.secret}")
     private String apiSecret;
 
+    @Value("${kite.cache.holdings-ttl-ms:30000}")
+    private long holdingsTtlMs;
+
+    @Value("${kite.cache.positions-ttl-ms:5000}")
+    private long positionsTtlMs;
+
+    @Value("${kite.cache.margins-ttl-ms:10000}")
+    private long marginsTtlMs;
+
+    @Value("${kite.cache.max-entries:64}")
+    private int cacheMaxEntries;
+
+    @Value("${kite.stream.enabled:true}")
+    private boolean streamEnabled;
+
+    @Value("${kite.stream.portfolio-ttl-ms:300000}")
+    private long streamPortfolioTtlMs;
+
+    @Value("${kite.rate-limit.quote.per-second:1}")
+    private double quotesPerSecond;
+
+    @Value("${kite.rate-limit.historical.per-second:3}")
+    private double historicalPerSecond;
+
+    @Value("${kite.rate-limit.historical.max-wait-ms:60000}")
+    private long historicalMaxWaitMs;
+
+    @Value("${kite.candles.sync-timeout-ms:90000}")
+    private long candleSyncTimeoutMs;
+
+    @Value("${kite.rate-limit.order.per-second:10}")
+    private double ordersPerSecond;
+
+    @Value("${kite.rate-limit.portfolio.per-second:10}")
+    private double portfolioPerSecond;
+
+    @Value("${kite.rate-limit.burst:1}")
+    private int rateLimitBurst;
+
+    @Value("${kite.rate-limit.max-wait-ms:15000}")
+    private long rateLimitMaxWaitMs;
+
+    @Value("${kite.orders.max-batch-size:100}")
+    private int maxBatchSize;
+
+    @Value("${kite.orders.resync-ms:60000}")
+    private long orderResyncMs;
+
+    @Value("${kite.orders.poll-interval-ms:2000}")
+    private long orderPollIntervalMs;
+
+    @Value("${kite.orders.await-max-ms:120000}")
+    private long orderAwaitMaxMs;
+
+    @Value("${kite.orders.retention-ms:3600000}")
+    private long orderRetentionMs;
+
+    @Value("${kite.risk.benchmark-token:256265}")
+    private String riskBenchmarkToken;
+
+    @Value("${kite.risk.lookback-days:365}")
+    private int riskLookbackDays;
+
+    @Value("${kite.risk.confidence:0.95}")
+    private double riskConfidence;
+
+    public KiteTradingService(KiteExecutor kiteExecutor, CandleStore candleStore,
+                              InstrumentRegistry instrumentRegistry, ServerMetrics serverMetrics,
+                              KiteSessions sessions, KiteConnectFactory kiteConnectFactory,
+                              TickSourceFactory tickSourceFactory, WarmStateStore warmStateStore) {
+        this.kiteExecutor = kiteExecutor;
+        this.candleStore = candleStore;
+        this.instrumentRegistry = instrumentRegistry;
+        this.serverMetrics = serverMetrics;
+        this.sessions = sessions;
+        this.kiteConnectFactory = kiteConnectFactory;
+        this.tickSourceFactory = tickSourceFactory;
+        this.warmStateStore = warmStateStore;
+    }
+
     @PostConstruct
     public void init() {
         log.info("Initializing KiteTradingService with API Key: {}", apiKey);
-        this.kiteConnect = new KiteConnect(apiKey);
-        
+        // The instrument master is the same for every account
+        instrumentRegistry.setSource(() -> {
+            warmStart();
+            KiteSession session = sessions.anyActive();
+            if (session == null) {
+                throw new TokenException("No active Kite session", 403);
+            }
+            return session.client().getInstruments();
+        });
+    }
+
+    /**
+     * A session for an account that is about to log in, with its own KiteConnect, rate limits,
+     * cache and order book. Kite applies rate limits per API key and user, so each account
+     * gets the full configured rates.
+     */
+    private KiteSession newSession() {
+        Map<KiteEndpoint, TokenBucket> buckets = new EnumMap<>(KiteEndpoint.class);
+        buckets.put(KiteEndpoint.QUOTE, new TokenBucket(quotesPerSecond, rateLimitBurst));
+        buckets.put(KiteEndpoint.HISTORICAL, new TokenBucket(historicalPerSecond, rateLimitBurst));
+        buckets.put(KiteEndpoint.ORDER, new TokenBucket(ordersPerSecond, rateLimitBurst));
+        buckets.put(KiteEndpoint.PORTFOLIO, new TokenBucket(portfolioPerSecond, rateLimitBurst));
+        KiteRateLimiter rateLimiter = new KiteRateLimiter(buckets, rateLimitMaxWaitMs);
+        // A first sync of a large portfolio queues many candle requests at 3 per second
+        rateLimiter.setMaxWaitMs(KiteEndpoint.HISTORICAL, historicalMaxWaitMs);
+
+        KiteConnect kiteConnect = kiteConnectFactory.create(apiKey);
+        KiteSession session = new KiteSession(new KiteClient(kiteConnect, rateLimiter, serverMetrics), rateLimiter,
+            new PortfolioCache(holdingsTtlMs, positionsTtlMs, marginsTtlMs, cacheMaxEntries),
+            new OrderTracker(orderPollIntervalMs, orderRetentionMs));
+        session.portfolioCache().setChangeListener(this::saveWarmState);
         // Set session expiry callback
         kiteConnect.setSessionExpiryHook(() -> {
-            log.warn("Kite session expired!");
+            log.warn("Kite session expired for account {}", session.accountId());
+            session.expire();
+            sessions.remove(session);
+            saveWarmState();
         });
+        return session;
     }
 
-    private boolean isSessionActive() {
-        return kiteConnect != null
-            && kiteConnect.getAccessToken() != null
-            && !kiteConnect.getAccessToken().isEmpty();
+    private void saveWarmState() {
+        warmStateStore.saveAsync(() -> {
+            List<WarmStateStore.AccountState> accounts = new ArrayList<>();
+            for (KiteSession session : sessions.all()) {
+                if (session.isActive()) {
+                    accounts.add(session.warmState());
+                }
+            }
+            return accounts;
+        });
     }
 
-    @Tool(name = "get_login_url", description = "Get Kite login URL for authorization")
-    public String getLoginUrl() {
-        if (kiteConnect == null) {
-            log.error("KiteConnect not initialized. API Key: {}", apiKey);
-            return null;
+    /**
+     * Restores the accounts of the previous run on first use. Their last portfolio data is
+     * served straight away, marked as coming from the snapshot, while each session is checked
+     * against Kite in the background.
+     */
+    private void warmStart() {
+        if (warmStarted) {
+            return;
+        }
+        synchronized (this) {
+            if (warmStarted) {
+                return;
+            }
+            for (WarmStateStore.AccountState state : warmStateStore.load()) {
+                KiteSession session = newSession();
+                session.activate(state.accountId(), state.accessToken(), state.publicToken(),
+                    state.loggedInAtMillis());
+                session.portfolioCache().restore(state.portfolio());
+                sessions.register(session);
+                log.info("Restored session of account {}", state.accountId());
+                kiteExecutor.getExecutor().execute(() -> revalidate(session, state.portfolio()));
+            }
+            // Set last, so that concurrent first calls wait here until every session is registered
+            warmStarted = true;
+        }
+    }
+
+    /**
+     * Refetches the restored data of a session. A rejected token drops the session; other
+     * failures keep serving the restored data until the next regular fetch.
+     */
+    private void revalidate(KiteSession session, PortfolioCache.Contents restored) {
+        try {
+            PortfolioCache cache = session.portfolioCache();
+            // An order placed meanwhile invalidates the cache, and the refetch is then not stored
+            cache.refreshHoldings(session.client()::getHoldings);
+            if (restored.positions() != null) {
+                cache.refreshPositions(session.client()::getPositions);
+            }
+            for (String segment : restored.margins().keySet()) {
+                cache.refreshMargins(segment, () -> session.client().getMargins(segment));
+            }
+            instrumentRegistry.refreshIfStale();
+            startTickStream(session);
+        } catch (TokenException e) {
+            log.warn("Restored session of account {} is no longer valid: {}", session.accountId(), e.getMessage());
+            session.expire();
+            sessions.remove(session);
+            saveWarmState();
+        } catch (KiteException | IOException e) {
+            log.warn("Could not revalidate restored session of account {}: {}", session.accountId(), e.getMessage());
+        }
+    }
+
+    private KiteSession session(String accountId) throws AccountSelectionException {
+        warmStart();
+        return sessions.resolve(accountId);
+    }
+
+    /**
+     * Starts the live price stream of a new session. Connecting blocks, so it runs in the
+     * background.
+     */
+    private void startTickStream(KiteSession session) {
+        if (!streamEnabled) {
+            return;
         }
-        String url = kiteConnect.getLoginURL();
+        TickSource source = tickSourceFactory.create(session.accessToken(), apiKey);
+        source.setOrderListener(order -> {
+            session.orderBook().onOrderUpdate(order);
+            session.orderTracker().onOrderUpdate(order);
+            if ("COMPLETE".equals(order.status)) {
+                // A fill moves holdings, positions and margins
+                session.portfolioCache().invalidateAll();
+            }
+        });
+        TickStream stream = new TickStream(source);
+        session.setTickStream(stream);
+        kiteExecutor.getExecutor().execute(() -> {
+            try {
+                stream.start();
+            } catch (RuntimeException e) {
+                log.warn("Could not start Kite ticker for account {}, prices will come from REST: {}",
+                    session.accountId(), e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * While prices stream live only quantities come from REST, so holdings and positions
+     * can be reused for longer.
+     */
+    private TickStream liveStream(KiteSession session) {
+        TickStream stream = session.tickStream();
+        boolean live = stream != null && stream.isLive();
+        session.portfolioCache().setQuantityTtls(live ? streamPortfolioTtlMs : holdingsTtlMs,
+            live ? streamPortfolioTtlMs : positionsTtlMs);
+        return live ? stream : null;
+    }
+
+    private Map<String, Object> accountError(AccountSelectionException e) {
+        log.error(e.getMessage());
+        Map<String, Object> errorResponse = new HashMap<>();
+        errorResponse.put("status", "failed");
+        errorResponse.put("error", e.getMessage());
+        errorResponse.put("error_code", e.getErrorCode());
+        if ("SESSION_EXPIRED".equals(e.getErrorCode())) {
+            errorResponse.put("error_type", "AUTHENTICATION_ERROR");
+            errorResponse.put("suggestion", "Please use get_login_url and generate_session tools to authenticate first.");
+        } else {
+            errorResponse.put("error_type", "VALIDATION_ERROR");
+            errorResponse.put("suggestion", "Please pass accountId, one of the accounts from list_accounts.");
+        }
+        return errorResponse;
+    }
+
+    @Tool(name = "get_login_url", resultConverter = MeteredResultConverter.class,
+        description = "Get Kite login URL for authorization")
+    public String getLoginUrl() {
+        String url = kiteConnectFactory.create(apiKey).getLoginURL();
         log.info("Generated login URL: {}", url);
         return url;
     }
 
-    @Tool(name = "generate_session", description = "Generate Kite session using request token")
+    @Tool(name = "generate_session", resultConverter = MeteredResultConverter.class,
+        description = "Generate Kite session using request token. Several "
+        + "accounts can be logged in at once; logging in again replaces that account's session")
     public Map<String, Object> generateSession(String requestToken) {
+        warmStart();
         try {
-            User user = kiteConnect.generateSession(requestToken, apiSecret);
-            kiteConnect.setAccessToken(user.accessToken);
-            kiteConnect.setPublicToken(user.publicToken);
-            this.accessToken = user.accessToken;
+            KiteSession session = newSession();
+            User user = session.client().generateSession(requestToken, apiSecret);
+            session.activate(user);
+            sessions.register(session);
+            saveWarmState();
+            instrumentRegistry.refreshIfStale();
+            startTickStream(session);
 
             Map<String, Object> response = new HashMap<>();
             response.put("access_token", user.accessToken);
             response.put("public_token", user.publicToken);
             response.put("user_id", user.userId);
+            response.put("account_id", session.accountId());
             response.put("message", "Session generated successfully");
             
             return response;
@@ -80,48 +336,242 @@ public class KiteTradingService {
         }
     }
 
-    @Tool(name = "place_order", description = "Place a trading order")
+    @Tool(name = "list_accounts", resultConverter = MeteredResultConverter.class,
+        description = "List the logged in Kite accounts")
+    public Map<String, Object> listAccounts() {
+        warmStart();
+        List<Map<String, Object>> accounts = new ArrayList<>();
+        for (KiteSession session : sessions.all()) {
+            accounts.add(session.describe());
+        }
+        accounts.sort(Comparator.comparing(account -> String.valueOf(account.get("account_id"))));
+        Map<String, Object> response = new HashMap<>();
+        response.put("accounts", accounts);
+        response.put("status", "success");
+        return response;
+    }
+
+    @Tool(name = "place_order", resultConverter = MeteredResultConverter.class,
+        description = "Place a trading order")
     public Map<String, Object> placeOrder(String tradingSymbol, String transactionType, 
-                                        int quantity, double price, String product) {
-        if (!isSessionActive()) {
-            Map<String, Object> errorResponse = new HashMap<>();
-            errorResponse.put("status", "failed");
-            errorResponse.put("error", "Kite session is not active. Please login first.");
-            errorResponse.put("error_type", "AUTHENTICATION_ERROR");
-            errorResponse.put("error_code", "SESSION_EXPIRED");
-            errorResponse.put("suggestion", "Please use get_login_url and generate_session tools to authenticate first.");
-            return errorResponse;
+                                        int quantity, double price, String product,
+                                        @ToolParam(required = false, description = "Exchange, NSE by default")
+                                        String exchange,
+                                        @ToolParam(required = false, description = ACCOUNT_ID_DESCRIPTION)
+                                        String accountId) {
+        KiteSession session;
+        try {
+            session = session(accountId);
+        } catch (AccountSelectionException e) {
+            return accountError(e);
+        }
+        Map<String, Object> response = submitOrder(session,
+            new OrderRequest(tradingSymbol, transactionType, quantity, price, product, exchange));
+        if ("success".equals(response.get("status"))) {
+            // Holdings, positions and margins all move once an order is accepted
+            session.portfolioCache().invalidateAll();
+        }
+        return response;
+    }
+
+    @Tool(name = "place_orders", resultConverter = MeteredResultConverter.class,
+        description = "Place a batch of trading orders concurrently, "
+        + "e.g. to rebalance a portfolio. Returns a result for every order, including failures")
+    public Map<String, Object> placeOrders(OrderRequest[] orders,
+                                        @ToolParam(required = false, description = ACCOUNT_ID_DESCRIPTION)
+                                        String accountId) {
+        KiteSession session;
+        try {
+            session = session(accountId);
+        } catch (AccountSelectionException e) {
+            return accountError(e);
+        }
+        if (orders == null || orders.length == 0) {
+            return Map.of("error", "No orders given", "status", "failed");
+        }
+        if (orders.length > maxBatchSize) {
+            return Map.of("error", "At most " + maxBatchSize + " orders can be placed in one batch",
+                "status", "failed");
+        }
+
+        long start = System.nanoTime();
+        List<CompletableFuture<Map<String, Object>>> futures = new ArrayList<>(orders.length);
+        for (OrderRequest order : orders) {
+            // submitOrder returns failures as error maps; the fallback keeps every index answered regardless
+            futures.add(CompletableFuture.supplyAsync(() -> submitOrder(session, order), kiteExecutor.getExecutor())
+                .exceptionally(e -> Map.of("status", "failed", "error", "Order was not submitted: " + e.getMessage(),
+                    "error_type", "INTERNAL_ERROR")));
+        }
+
+        List<Map<String, Object>> results = new ArrayList<>(orders.length);
+        int succeeded = 0;
+        for (int i = 0; i < futures.size(); i++) {
+            Map<String, Object> result = new HashMap<>(futures.get(i).join());
+            result.put("index", i);
+            if ("success".equals(result.get("status"))) {
+                succeeded++;
+            }
+            results.add(result);
+        }
+        if (succeeded > 0) {
+            session.portfolioCache().invalidateAll();
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("status", succeeded == orders.length ? "success" : succeeded == 0 ? "failed" : "partial");
+        response.put("total_orders", orders.length);
+        response.put("succeeded", succeeded);
+        response.put("failed", orders.length - succeeded);
+        response.put("results", results);
+        response.put("elapsed_ms", (System.nanoTime() - start) / 1_000_000);
+        return response;
+    }
+
+    @Tool(name = "await_order_fill", resultConverter = MeteredResultConverter.class,
+        description = "Wait until an order is complete, rejected or cancelled, "
+        + "or until the timeout, and return its latest status and filled quantity. Follows pushed order "
+        + "updates instead of polling the order book")
+    public Map<String, Object> awaitOrderFill(String orderId,
+            @ToolParam(required = false, description = "Seconds to wait, 30 by default") Integer timeoutSeconds,
+            @ToolParam(required = false, description = ACCOUNT_ID_DESCRIPTION) String accountId) {
+        KiteSession session;
+        try {
+            session = session(accountId);
+        } catch (AccountSelectionException e) {
+            return accountError(e);
+        }
+        if (orderId == null || orderId.isBlank()) {
+            return Map.of("error", "orderId is required", "status", "failed");
+        }
+        long timeoutMs = Math.min(orderAwaitMaxMs,
+            (timeoutSeconds != null ? Math.max(0, timeoutSeconds) : 30) * 1000L);
+        try {
+            OrderTracker.Result result = session.orderTracker().await(orderId.trim(), timeoutMs,
+                session::isStreamLive, id -> () -> session.client().getOrderHistory(id));
+            Order order = result.order();
+            if (order == null) {
+                Map<String, Object> errorResponse = new HashMap<>();
+                errorResponse.put("status", "failed");
+                errorResponse.put("error", "No order " + orderId + " found");
+                errorResponse.put("error_type", "VALIDATION_ERROR");
+                errorResponse.put("error_code", "UNKNOWN_ORDER");
+                errorResponse.put("suggestion", "Please check the order_id returned by place_order.");
+                return errorResponse;
+            }
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("order_id", order.orderId);
+            response.put("order_status", order.status);
+            response.put("done", result.done());
+            response.put("timed_out", !result.done());
+            response.put("trading_symbol", order.tradingSymbol);
+            response.put("quantity", order.quantity);
+            response.put("filled_quantity", order.filledQuantity);
+            response.put("pending_quantity", order.pendingQuantity);
+            response.put("average_price", order.averagePrice);
+            if (order.statusMessage != null) {
+                response.put("status_message", order.statusMessage);
+            }
+            response.put("update_source", result.source());
+            response.put("waited_ms", result.waitedMs());
+            response.put("status", "success");
+            return response;
+        } catch (KiteException | IOException e) {
+            log.error("Error waiting for order {}", orderId, e);
+            return Map.of("error", String.valueOf(e.getMessage()), "status", "failed");
+        }
+    }
+
+    /**
+     * Checks an order before it is sent, against the instrument master once it has been loaded.
+     * Returns null when the order is valid.
+     */
+    private String validateOrder(OrderRequest request, String exchange) {
+        if (request.tradingSymbol() == null || request.tradingSymbol().isBlank()) {
+            return "Trading symbol is missing";
+        }
+        if (!"BUY".equals(request.transactionType()) && !"SELL".equals(request.transactionType())) {
+            return "Transaction type must be BUY or SELL";
+        }
+        if (request.quantity() <= 0) {
+            return "Quantity must be positive";
+        }
+        InstrumentIndex index = instrumentRegistry.current();
+        if (index == null) {
+            return null;
+        }
+        int row = index.rowOf(exchange, request.tradingSymbol());
+        if (row < 0) {
+            return "Unknown trading symbol " + request.tradingSymbol() + " on " + exchange;
+        }
+        int lotSize = index.lotSize(row);
+        if (lotSize > 1 && request.quantity() % lotSize != 0) {
+            return "Quantity must be a positive multiple of the lot size " + lotSize;
+        }
+        double tickSize = index.tickSize(row);
+        if (tickSize > 0) {
+            double ticks = request.price() / tickSize;
+            if (Math.abs(ticks - Math.rint(ticks)) > 1e-6) {
+                return "Price must be a multiple of the tick size " + tickSize;
+            }
+        }
+        return null;
+    }
+
+    private Map<String, Object> invalidQueryError(IllegalArgumentException e) {
+        Map<String, Object> errorResponse = new HashMap<>();
+        errorResponse.put("status", "failed");
+        errorResponse.put("error", e.getMessage());
+        errorResponse.put("error_type", "VALIDATION_ERROR");
+        errorResponse.put("error_code", "INVALID_QUERY");
+        errorResponse.put("suggestion", "Please check offset, limit, fields, minAbsPnl and sinceVersion.");
+        return errorResponse;
+    }
+
+    /**
+     * Places a single order. Orders queue on the ORDER rate limit so that batches stay
+     * under Kite's orders-per-second limit. Failures, unexpected ones included, are returned as
+     * error maps, so a batch always gets a result for every order.
+     */
+    private Map<String, Object> submitOrder(KiteSession session, OrderRequest request) {
+        if (request == null) {
+            return invalidOrderError(null, "Order is missing");
+        }
+        String exchange = request.exchange() != null ? request.exchange() : Constants.EXCHANGE_NSE;
+        String validationError = validateOrder(request, exchange);
+        if (validationError != null) {
+            return invalidOrderError(request.tradingSymbol(), validationError);
         }
         try {
             OrderParams orderParams = new OrderParams();
             // Set required parameters
-            orderParams.tradingsymbol = tradingSymbol;
-            orderParams.transactionType = transactionType.equals("BUY") ? 
+            orderParams.tradingsymbol = request.tradingSymbol();
+            orderParams.transactionType = "BUY".equals(request.transactionType()) ? 
                 Constants.TRANSACTION_TYPE_BUY : Constants.TRANSACTION_TYPE_SELL;
-            orderParams.quantity = quantity;
-            orderParams.price = price;
-            orderParams.product = product != null ? product : Constants.PRODUCT_CNC;
+            orderParams.quantity = request.quantity();
+            orderParams.price = request.price();
+            orderParams.product = request.product() != null ? request.product() : Constants.PRODUCT_CNC;
             
             // Set optional parameters with defaults
             orderParams.orderType = Constants.ORDER_TYPE_LIMIT;
-            orderParams.exchange = Constants.EXCHANGE_NSE;
+            orderParams.exchange = exchange;
             orderParams.validity = Constants.VALIDITY_DAY;
             orderParams.triggerPrice = 0.0;
             orderParams.tag = "MCP";
             orderParams.marketProtection = 0;
 
             // Place order with regular variety
-            Order order = kiteConnect.placeOrder(orderParams, Constants.VARIETY_REGULAR);
+            Order order = session.client().placeOrder(orderParams, Constants.VARIETY_REGULAR);
             
             Map<String, Object> response = new HashMap<>();
             response.put("order_id", order.orderId);
             response.put("status", "success");
             response.put("message", "Order placed successfully");
             response.put("details", Map.of(
-                "trading_symbol", tradingSymbol,
-                "transaction_type", transactionType,
-                "quantity", quantity,
-                "price", price,
+                "trading_symbol", request.tradingSymbol(),
+                "transaction_type", request.transactionType(),
+                "quantity", request.quantity(),
+                "price", request.price(),
                 "product", orderParams.product,
                 "order_type", orderParams.orderType,
                 "validity", orderParams.validity,
@@ -129,6 +579,15 @@ public class KiteTradingService {
             ));
             
             return response;
+        } catch (RateLimitedException e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("status", "failed");
+            errorResponse.put("error", e.getMessage());
+            errorResponse.put("error_type", "RATE_LIMITED");
+            errorResponse.put("error_code", "ORDER_THROTTLED");
+            errorResponse.put("suggestion", "Please retry this order in a few seconds.");
+            errorResponse.put("trading_symbol", request.tradingSymbol());
+            return errorResponse;
         } catch (KiteException e) {
             Map<String, Object> errorResponse = new HashMap<>();
             errorResponse.put("status", "failed");
@@ -136,6 +595,7 @@ public class KiteTradingService {
             errorResponse.put("error_type", "KITE_API_ERROR");
             errorResponse.put("error_code", e.getClass().getSimpleName());
             errorResponse.put("suggestion", "Please check the order parameters and try again.");
+            errorResponse.put("trading_symbol", request.tradingSymbol());
             return errorResponse;
         } catch (IOException e) {
             Map<String, Object> errorResponse = new HashMap<>();
@@ -144,6 +604,7 @@ public class KiteTradingService {
             errorResponse.put("error_type", "NETWORK_ERROR");
             errorResponse.put("error_code", "IO_EXCEPTION");
             errorResponse.put("suggestion", "Please check your internet connection and try again.");
+            errorResponse.put("trading_symbol", request.tradingSymbol());
             return errorResponse;
         } catch (JSONException e) {
             Map<String, Object> errorResponse = new HashMap<>();
@@ -152,22 +613,50 @@ public class KiteTradingService {
             errorResponse.put("error_type", "RESPONSE_ERROR");
             errorResponse.put("error_code", "JSON_EXCEPTION");
             errorResponse.put("suggestion", "Please try again later.");
+            errorResponse.put("trading_symbol", request.tradingSymbol());
+            return errorResponse;
+        } catch (RuntimeException e) {
+            log.error("Unexpected error placing order for {}", request.tradingSymbol(), e);
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("status", "failed");
+            errorResponse.put("error", "Unexpected error: " + e.getMessage());
+            errorResponse.put("error_type", "INTERNAL_ERROR");
+            errorResponse.put("error_code", e.getClass().getSimpleName());
+            errorResponse.put("suggestion", "Please check the order book before retrying this order.");
+            errorResponse.put("trading_symbol", request.tradingSymbol());
             return errorResponse;
         }
     }
 
-    @Tool(name = "get_margins", description = "Get account margins")
-    public Map<String, Object> getMargins(String segment) {
-        if (!isSessionActive()) {
-            log.error("Kite session is not active. Please login first.");
-            return Map.of("error", "Kite session is not active. Please login first.", "status", "failed");
+    private Map<String, Object> invalidOrderError(String tradingSymbol, String error) {
+        Map<String, Object> errorResponse = new HashMap<>();
+        errorResponse.put("status", "failed");
+        errorResponse.put("error", error);
+        errorResponse.put("error_type", "VALIDATION_ERROR");
+        errorResponse.put("error_code", "INVALID_ORDER");
+        errorResponse.put("suggestion", "Please check the trading symbol, transaction type, exchange, quantity "
+            + "and price.");
+        errorResponse.put("trading_symbol", tradingSymbol);
+        return errorResponse;
+    }
+
+    @Tool(name = "get_margins", resultConverter = MeteredResultConverter.class,
+        description = "Get account margins")
+    public Map<String, Object> getMargins(String segment,
+            @ToolParam(required = false, description = ACCOUNT_ID_DESCRIPTION) String accountId) {
+        KiteSession session;
+        try {
+            session = session(accountId);
+        } catch (AccountSelectionException e) {
+            return accountError(e);
         }
         try {
-            Margin margins = kiteConnect.getMargins(segment);
+            Margin margins = session.portfolioCache().margins(segment, () -> session.client().getMargins(segment));
             
             Map<String, Object> response = new HashMap<>();
             response.put("available_cash", margins.available.cash);
             response.put("utilised_debits", margins.utilised.debits);
+            response.put("freshness", session.portfolioCache().marginsFreshness(segment));
             response.put("status", "success");
             
             return response;
@@ -180,30 +669,48 @@ public class KiteTradingService {
         }
     }
 
-    @Tool(name = "get_holdings", description = "Get current portfolio holdings")
-    public Map<String, Object> getHoldings() {
-        if (!isSessionActive()) {
-            log.error("Kite session is not active. Please login first.");
-            return Map.of("error", "Kite session is not active. Please login first.", "status", "failed");
+    @Tool(name = "get_holdings", resultConverter = MeteredResultConverter.class,
+        description = "Get current portfolio holdings. Large portfolios can be "
+        + "paged with offset/limit, trimmed to some fields, filtered by absolute P&L, or reduced to the rows "
+        + "changed since the version returned by a previous call")
+    public Map<String, Object> getHoldings(
+            @ToolParam(required = false, description = "Index of the first holding to return") Integer offset,
+            @ToolParam(required = false, description = "Maximum number of holdings to return") Integer limit,
+            @ToolParam(required = false, description = "Comma separated fields to return, e.g. trading_symbol,pnl")
+            String fields,
+            @ToolParam(required = false, description = "Only holdings whose absolute P&L is at least this")
+            Double minAbsPnl,
+            @ToolParam(required = false, description = "Only holdings changed after this version")
+            Long sinceVersion,
+            @ToolParam(required = false, description = ACCOUNT_ID_DESCRIPTION) String accountId) {
+        KiteSession session;
+        try {
+            session = session(accountId);
+        } catch (AccountSelectionException e) {
+            return accountError(e);
         }
+        RowQuery query;
         try {
-            List<Holding> holdings = kiteConnect.getHoldings();
+            query = RowQuery.of(offset, limit, fields, minAbsPnl, sinceVersion,
+                PortfolioRows.HOLDING_SCHEMA.fields().keySet());
+        } catch (IllegalArgumentException e) {
+            return invalidQueryError(e);
+        }
+        try {
+            TickStream stream = liveStream(session);
+            List<Holding> holdings = session.portfolioCache().holdings(session.client()::getHoldings);
+            if (stream != null) {
+                stream.track(holdings, null);
+            }
+            
+            PortfolioRows.Holdings rows = PortfolioRows.holdings(holdings, stream);
             
             Map<String, Object> response = new HashMap<>();
             response.put("total_holdings", holdings.size());
-            
-            List<Map<String, Object>> holdingsList = new ArrayList<>();
-            for (Holding holding : holdings) {
-                Map<String, Object> holdingData = new HashMap<>();
-                holdingData.put("trading_symbol", holding.tradingSymbol);
-                holdingData.put("day_change", holding.dayChange);
-                holdingData.put("day_change_percentage", holding.dayChangePercentage);
-                holdingData.put("quantity", holding.quantity);
-                holdingData.put("average_price", holding.averagePrice);
-                holdingsList.add(holdingData);
-            }
-            
-            response.put("holdings", holdingsList);
+            response.putAll(query.apply("holdings", rows.rows(), PortfolioRows.HOLDING_SCHEMA, session.holdingVersions()));
+            response.put("total_pnl", stream != null ? stream.holdingsPnl() : rows.totalPnl());
+            response.put("price_source", stream != null ? "stream" : "rest");
+            response.put("freshness", session.portfolioCache().holdingsFreshness());
             response.put("status", "success");
             
             return response;
@@ -216,75 +723,66 @@ public class KiteTradingService {
         }
     }
 
-    @Tool(name = "get_positions", description = "Get current positions with P&L analysis")
-    public Map<String, Object> getPositions() {
-        if (!isSessionActive()) {
-            log.error("Kite session is not active. Please login first.");
-            return Map.of("error", "Kite session is not active. Please login first.", "status", "failed");
+    @Tool(name = "get_positions", resultConverter = MeteredResultConverter.class,
+        description = "Get current positions with P&L analysis. Net and day "
+        + "positions can be paged with offset/limit, trimmed to some fields, filtered by absolute P&L, or "
+        + "reduced to the rows changed since the version returned by a previous call")
+    public Map<String, Object> getPositions(
+            @ToolParam(required = false, description = "Index of the first position to return") Integer offset,
+            @ToolParam(required = false, description = "Maximum number of positions to return") Integer limit,
+            @ToolParam(required = false, description = "Comma separated fields to return, e.g. trading_symbol,pnl")
+            String fields,
+            @ToolParam(required = false, description = "Only positions whose absolute P&L is at least this")
+            Double minAbsPnl,
+            @ToolParam(required = false, description = "Only positions changed after this version")
+            Long sinceVersion,
+            @ToolParam(required = false, description = ACCOUNT_ID_DESCRIPTION) String accountId) {
+        KiteSession session;
+        try {
+            session = session(accountId);
+        } catch (AccountSelectionException e) {
+            return accountError(e);
+        }
+        RowQuery query;
+        try {
+            Set<String> knownFields = new HashSet<>(PortfolioRows.NET_POSITION_SCHEMA.fields().keySet());
+            knownFields.addAll(PortfolioRows.DAY_POSITION_SCHEMA.fields().keySet());
+            query = RowQuery.of(offset, limit, fields, minAbsPnl, sinceVersion, knownFields);
+        } catch (IllegalArgumentException e) {
+            return invalidQueryError(e);
         }
         try {
-            // Check if required parameters are available
-            if (apiKey == null || accessToken == null) {
-                log.error("API key or access token is missing");
-                return Map.of("error", "Authentication parameters missing", "status", "failed");
-            }
-            
             // Get positions using KiteConnect
-            Map<String, List<Position>> positions = kiteConnect.getPositions();
-            
-            // Process net positions
-            List<Map<String, Object>> netPositions = new ArrayList<>();
-            for (Position position : positions.get("net")) {
-                if (position.netQuantity != 0) {
-                    Map<String, Object> posData = new HashMap<>();
-                    posData.put("trading_symbol", position.tradingSymbol);
-                    posData.put("quantity", position.netQuantity);
-                    posData.put("average_price", position.averagePrice);
-                    posData.put("last_price", position.lastPrice);
-                    posData.put("pnl", position.pnl);
-                    posData.put("unrealised", position.unrealised);
-                    posData.put("realised", position.realised);
-                    posData.put("product", position.product);
-                    posData.put("instrument_token", position.instrumentToken);
-                    netPositions.add(posData);
-                }
-            }
-            
-            // Process day positions
-            List<Map<String, Object>> dayPositions = new ArrayList<>();
-            for (Position position : positions.get("day")) {
-                if (position.netQuantity != 0) {
-                    Map<String, Object> posData = new HashMap<>();
-                    posData.put("trading_symbol", position.tradingSymbol);
-                    posData.put("quantity", position.netQuantity);
-                    posData.put("average_price", position.averagePrice);
-                    posData.put("last_price", position.lastPrice);
-                    posData.put("pnl", position.pnl);
-                    posData.put("product", position.product);
-                    dayPositions.add(posData);
-                }
+            TickStream stream = liveStream(session);
+            Map<String, List<Position>> positions = session.portfolioCache().positions(session.client()::getPositions);
+            if (stream != null) {
+                stream.track(null, positions.get("net"));
             }
             
-            // Calculate summary statistics
-            double totalPnl = netPositions.stream()
-                .mapToDouble(pos -> (Double) pos.get("pnl"))
-                .sum();
-            
-            double totalUnrealised = netPositions.stream()
-                .mapToDouble(pos -> (Double) pos.get("unrealised"))
-                .sum();
+            // Process net and day positions
+            PortfolioRows.NetPositions netPositions = PortfolioRows.netPositions(positions.get("net"), stream);
+            List<PortfolioRows.DayPositionRow> dayPositions = PortfolioRows.dayPositions(positions.get("day"));
             
             // Prepare result
             Map<String, Object> result = new HashMap<>();
-            result.put("net_positions", netPositions);
-            result.put("day_positions", dayPositions);
-            result.put("total_positions", netPositions.size());
-            result.put("total_pnl", totalPnl);
-            result.put("total_unrealised_pnl", totalUnrealised);
+            RowVersions.Stamp netStamp = query.stamp(netPositions.rows(), session.netPositionVersions());
+            RowVersions.Stamp dayStamp = query.stamp(dayPositions, session.dayPositionVersions());
+            // Both lists share one delta flag, so either missing removals returns both in full
+            boolean complete = netStamp.complete() && dayStamp.complete();
+            result.putAll(query.apply("net_positions", netPositions.rows(),
+                PortfolioRows.NET_POSITION_SCHEMA, netStamp, complete));
+            // Day rows are stamped last, so this version also covers the net rows above
+            result.putAll(query.apply("day_positions", dayPositions,
+                PortfolioRows.DAY_POSITION_SCHEMA, dayStamp, complete));
+            result.put("total_positions", netPositions.rows().size());
+            result.put("total_pnl", stream != null ? stream.positionsPnl() : netPositions.totalPnl());
+            result.put("total_unrealised_pnl", netPositions.totalUnrealised());
+            result.put("price_source", stream != null ? "stream" : "rest");
+            result.put("freshness", session.portfolioCache().positionsFreshness());
             result.put("status", "success");
             
             log.info("Successfully retrieved {} net positions and {} day positions", 
-                    netPositions.size(), dayPositions.size());
+                    netPositions.rows().size(), dayPositions.size());
             
             return result;
             
@@ -300,33 +798,69 @@ public class KiteTradingService {
         }
     }
 
-    @Tool(name = "get_risk_analysis", description = "Get portfolio risk analysis")
-    public Map<String, Object> getRiskAnalysis() {
-        if (!isSessionActive()) {
-            log.error("Kite session is not active. Please login first.");
-            return Map.of("error", "Kite session is not active. Please login first.", "status", "failed");
+    @Tool(name = "get_risk_analysis", resultConverter = MeteredResultConverter.class,
+        description = "Get portfolio risk analysis: cash, sector and segment "
+        + "exposure. With includeHistoricalRisk, also historical VaR and CVaR, volatility, beta against NIFTY 50, "
+        + "return correlation between holdings and concentration, from daily closing prices")
+    public Map<String, Object> getRiskAnalysis(
+            @ToolParam(required = false, description = "Include historical risk from daily candles. The first "
+                + "call of a day fetches candles for every holding, which takes longer for large portfolios")
+            Boolean includeHistoricalRisk,
+            @ToolParam(required = false, description = "Calendar days of history to use, 365 by default")
+            Integer lookbackDays,
+            @ToolParam(required = false, description = "VaR confidence level, 0.95 by default") Double confidence,
+            @ToolParam(required = false, description = "Include the full holding by holding correlation matrix")
+            Boolean includeCorrelationMatrix,
+            @ToolParam(required = false, description = ACCOUNT_ID_DESCRIPTION) String accountId) {
+        KiteSession session;
+        try {
+            session = session(accountId);
+        } catch (AccountSelectionException e) {
+            return accountError(e);
+        }
+        int days = lookbackDays != null ? lookbackDays : riskLookbackDays;
+        double level = confidence != null ? confidence : riskConfidence;
+        if (days < 30 || level < 0.5 || level >= 1) {
+            return Map.of("error", "lookbackDays must be at least 30 and confidence between 0.5 and 1",
+                "status", "failed");
         }
         try {
             Map<String, Object> response = new HashMap<>();
             
-            // Get margins
-            Margin margins = kiteConnect.getMargins("equity");
+            // Margins and holdings are independent, so fetch them concurrently
+            CompletableFuture<Margin> marginsFuture = kiteExecutor.submit(
+                () -> session.portfolioCache().margins("equity", () -> session.client().getMargins("equity")));
+            CompletableFuture<List<Holding>> holdingsFuture = kiteExecutor.submit(
+                () -> session.portfolioCache().holdings(session.client()::getHoldings));
+            
+            Margin margins = kiteExecutor.await(marginsFuture);
             response.put("available_cash", margins.available.cash);
             response.put("utilised_debits", margins.utilised.debits);
             
             // Get holdings for diversification analysis
-            List<Holding> holdings = kiteConnect.getHoldings();
+            List<Holding> holdings = kiteExecutor.await(holdingsFuture);
             Map<String, Double> sectorExposure = new HashMap<>();
+            Map<String, Double> segmentExposure = new HashMap<>();
+            InstrumentIndex index = instrumentRegistry.current();
             double totalValue = 0;
             
             for (Holding holding : holdings) {
-                totalValue += holding.averagePrice * holding.quantity;
-                // You would need to maintain a mapping of stocks to sectors
-                // sectorExposure.merge(holding.sector, holding.averagePrice * holding.quantity, Double::sum);
+                double value = holding.averagePrice * holding.quantity;
+                totalValue += value;
+                sectorExposure.merge(instrumentRegistry.sectorOf(holding.tradingSymbol), value, Double::sum);
+                if (index != null && holding.instrumentToken != null) {
+                    int row = index.rowOf(Long.parseLong(holding.instrumentToken));
+                    segmentExposure.merge(row >= 0 ? index.segment(row) : "UNKNOWN", value, Double::sum);
+                }
             }
             
             response.put("total_portfolio_value", totalValue);
             response.put("sector_exposure", sectorExposure);
+            response.put("segment_exposure", segmentExposure);
+            if (Boolean.TRUE.equals(includeHistoricalRisk)) {
+                response.put("risk", historicalRisk(session, holdings, days, level,
+                    Boolean.TRUE.equals(includeCorrelationMatrix)));
+            }
             
             return response;
         } catch (KiteException | IOException e) {
@@ -335,97 +869,296 @@ public class KiteTradingService {
         }
     }
 
-    // TODO: Implement historical performance properly
-    // @Tool(name = "get_historical_performance", description = "Get historical portfolio performance")
-    // public Map<String, Object> getHistoricalPerformance(String fromDate, String toDate) {
-    //     if (!isSessionActive()) {
-    //         log.error("Kite session is not active. Please login first.");
-    //         return Map.of("error", "Kite session is not active. Please login first.", "status", "failed");
-    //     }
-    //     try {
-    //         SimpleDateFormat formatter = new SimpleDateFormat("yyyy-MM-dd");
-    //         Date from = formatter.parse(fromDate);
-    //         Date to = formatter.parse(toDate);
-            
-    //         Map<String, Object> response = new HashMap<>();
-    //         List<Map<String, Object>> dailyPerformance = new ArrayList<>();
-            
-    //         // Get historical data for each holding
-    //         List<Holding> holdings;
-    //         try {
-    //             holdings = kiteConnect.getHoldings();
-    //         } catch (KiteException | IOException e) {
-    //             log.error("Error fetching holdings: {}", e.getMessage());
-    //             return Map.of(
-    //                 "error", "Failed to fetch holdings: " + e.getMessage(),
-    //                 "status", "failed"
-    //             );
-    //         }
-            
-    //         for (Holding holding : holdings) {
-    //             try {
-    //                 HistoricalData data = kiteConnect.getHistoricalData(
-    //                     from, to, 
-    //                     holding.instrumentToken, 
-    //                     "day", 
-    //                     false, 
-    //                     false
-    //                 );
-                    
-    //                 if (data != null && data.dataArrayList != null) {
-    //                     for (Object point : data.dataArrayList) {
-    //                         Map<String, Object> dayData = new HashMap<>();
-    //                         dayData.put("date", point.toString());
-    //                         dayData.put("symbol", holding.tradingSymbol);
-    //                         dayData.put("instrument_token", holding.instrumentToken);
-    //                         dailyPerformance.add(dayData);
-    //                     }
-    //                 }
-    //             } catch (KiteException | IOException e) {
-    //                 log.warn("Error fetching historical data for {}: {}", holding.tradingSymbol, e.getMessage());
-    //                 // Continue with next holding even if one fails
-    //                 continue;
-    //             }
-    //         }
-            
-    //         response.put("daily_performance", dailyPerformance);
-    //         response.put("status", "success");
-    //         return response;
-    //     } catch (Exception e) {
-    //         log.error("Error getting historical performance", e);
-    //         return Map.of(
-    //             "error", e.getMessage(),
-    //             "status", "failed"
-    //         );
-    //     }
-    // }
-
-    @Tool(name = "get_order_analysis", description = "Get order history analysis")
-    public Map<String, Object> getOrderAnalysis() {
-        if (!isSessionActive()) {
-            log.error("Kite session is not active. Please login first.");
-            return Map.of("error", "Kite session is not active. Please login first.", "status", "failed");
+    /**
+     * Historical risk of the holdings at their current market value, from daily candles in the
+     * candle store. Holdings without at least two candles in the window are left out.
+     */
+    private Map<String, Object> historicalRisk(KiteSession session, List<Holding> holdings, int lookbackDays, double confidence,
+                                               boolean includeMatrix) {
+        LocalDate to = MarketClock.today();
+        LocalDate from = to.minusDays(lookbackDays);
+        List<CompletableFuture<CandleSeries>> futures = new ArrayList<>(holdings.size());
+        for (Holding holding : holdings) {
+            futures.add(kiteExecutor.submitHistorical(
+                () -> candleStore.read(holding.instrumentToken, from, to, session.client()::getDailyCandles)));
+        }
+        CompletableFuture<CandleSeries> benchmarkFuture = kiteExecutor.submitHistorical(
+            () -> candleStore.read(riskBenchmarkToken, from, to, session.client()::getDailyCandles));
+
+        List<CandleSeries> seriesList = new ArrayList<>(holdings.size() + 1);
+        List<Holding> included = new ArrayList<>(holdings.size());
+        List<String> excludedSymbols = new ArrayList<>();
+        for (int i = 0; i < holdings.size(); i++) {
+            Holding holding = holdings.get(i);
+            try {
+                CandleSeries series = kiteExecutor.await(futures.get(i), candleSyncTimeoutMs);
+                if (series.size() >= 2) {
+                    seriesList.add(series);
+                    included.add(holding);
+                    continue;
+                }
+            } catch (KiteException | IOException e) {
+                log.warn("Error fetching historical data for {}: {}", holding.tradingSymbol, e.getMessage());
+            }
+            excludedSymbols.add(holding.tradingSymbol);
         }
+        CandleSeries benchmarkSeries = CandleSeries.empty();
         try {
-            List<Order> orders = kiteConnect.getOrders();
-            
+            benchmarkSeries = kiteExecutor.await(benchmarkFuture, candleSyncTimeoutMs);
+        } catch (KiteException | IOException e) {
+            log.warn("Error fetching benchmark history: {}", e.getMessage());
+        }
+        boolean hasBenchmark = benchmarkSeries.size() >= 2;
+        if (hasBenchmark) {
+            seriesList.add(benchmarkSeries);
+        }
+
+        Map<String, Object> risk = new HashMap<>();
+        risk.put("excluded_symbols", excludedSymbols);
+        if (included.isEmpty()) {
+            risk.put("error", "Not enough price history for any holding");
+            return risk;
+        }
+
+        long start = System.nanoTime();
+        double[][] returns = RiskEngine.alignedReturns(seriesList);
+        double[][] holdingReturns = hasBenchmark ? Arrays.copyOf(returns, included.size()) : returns;
+        double[] values = new double[included.size()];
+        double marketValue = 0;
+        for (int i = 0; i < included.size(); i++) {
+            Holding holding = included.get(i);
+            double price = TickStream.value(holding.lastPrice);
+            values[i] = holding.quantity * (price > 0 ? price : holding.averagePrice);
+            marketValue += values[i];
+        }
+        RiskEngine.Result result;
+        try {
+            result = riskEngine.analyse(holdingReturns, values, hasBenchmark ? returns[included.size()] : null,
+                confidence);
+        } catch (IllegalArgumentException e) {
+            risk.put("error", e.getMessage());
+            return risk;
+        }
+
+        List<Map<String, Object>> perHolding = new ArrayList<>(included.size());
+        List<String> symbols = new ArrayList<>(included.size());
+        for (int i = 0; i < included.size(); i++) {
+            Map<String, Object> holdingRisk = new HashMap<>();
+            holdingRisk.put("trading_symbol", included.get(i).tradingSymbol);
+            holdingRisk.put("weight", result.weights()[i]);
+            holdingRisk.put("annualised_volatility", result.volatilities()[i]);
+            if (hasBenchmark) {
+                holdingRisk.put("beta", result.betas()[i]);
+            }
+            perHolding.add(holdingRisk);
+            symbols.add(included.get(i).tradingSymbol);
+        }
+        List<Map<String, Object>> correlatedPairs = new ArrayList<>();
+        for (RiskEngine.Pair pair : RiskEngine.mostCorrelated(result.correlation(), 10)) {
+            correlatedPairs.add(Map.of(
+                "symbols", List.of(symbols.get(pair.first()), symbols.get(pair.second())),
+                "correlation", pair.correlation()));
+        }
+
+        Map<String, Object> concentration = new HashMap<>();
+        concentration.put("herfindahl_index", result.herfindahl());
+        concentration.put("effective_holdings", result.herfindahl() > 0 ? 1 / result.herfindahl() : 0.0);
+        concentration.put("max_weight", result.maxWeight());
+        concentration.put("top5_weight", result.top5Weight());
+
+        risk.put("from_date", from.toString());
+        risk.put("observations", result.observations());
+        risk.put("confidence", confidence);
+        risk.put("market_value", marketValue);
+        risk.put("value_at_risk_pct", result.valueAtRisk() * 100);
+        risk.put("value_at_risk", result.valueAtRisk() * marketValue);
+        risk.put("conditional_value_at_risk_pct", result.conditionalValueAtRisk() * 100);
+        risk.put("conditional_value_at_risk", result.conditionalValueAtRisk() * marketValue);
+        risk.put("annualised_volatility", result.volatility());
+        if (hasBenchmark) {
+            risk.put("beta", result.beta());
+        }
+        if (included.size() > 1) {
+            risk.put("average_correlation", result.averageCorrelation());
+        }
+        risk.put("most_correlated_pairs", correlatedPairs);
+        risk.put("concentration", concentration);
+        risk.put("holdings", perHolding);
+        if (includeMatrix) {
+            risk.put("correlation_matrix", Map.of("symbols", symbols, "values", result.correlation()));
+        }
+        risk.put("compute_ms", (System.nanoTime() - start) / 1_000_000);
+        return risk;
+    }
+
+    @Tool(name = "get_cache_stats", resultConverter = MeteredResultConverter.class,
+        description = "Get hit/miss statistics of the portfolio cache, "
+        + "request coalescing and rate limiter counters, per logged in account")
+    public Map<String, Object> getCacheStats(
+            @ToolParam(required = false, description = "Kite user ID to report, every account by default")
+            String accountId) {
+        warmStart();
+        Map<String, Object> accounts = new TreeMap<>();
+        for (KiteSession session : sessions.all()) {
+            if (accountId == null || accountId.isBlank() || accountId.trim().equals(session.accountId())) {
+                accounts.put(session.accountId(), session.stats());
+            }
+        }
+        Map<String, Object> response = new HashMap<>();
+        response.put("accounts", accounts);
+        response.put("candle_store", candleStore.stats());
+        response.put("instruments", instrumentRegistry.stats());
+        response.put("warm_state", warmStateStore.stats());
+        response.put("status", "success");
+        return response;
+    }
+
+    @Tool(name = "get_server_metrics", resultConverter = MeteredResultConverter.class,
+        description = "Get latency percentiles of every tool and Kite API call, "
+        + "error counts by error type, and cache and rate limiter counters")
+    public Map<String, Object> getServerMetrics() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("meters", serverMetrics.snapshot());
+        response.put("status", "success");
+        return response;
+    }
+
+    @Tool(name = "get_historical_performance", resultConverter = MeteredResultConverter.class,
+        description = "Get historical portfolio performance "
+        + "of current holdings between two dates (yyyy-MM-dd), from daily closing prices")
+    public Map<String, Object> getHistoricalPerformance(String fromDate, String toDate,
+            @ToolParam(required = false, description = ACCOUNT_ID_DESCRIPTION) String accountId) {
+        KiteSession session;
+        try {
+            session = session(accountId);
+        } catch (AccountSelectionException e) {
+            return accountError(e);
+        }
+        LocalDate from;
+        LocalDate to;
+        try {
+            from = LocalDate.parse(fromDate);
+            to = LocalDate.parse(toDate);
+        } catch (DateTimeParseException | NullPointerException e) {
+            return Map.of("error", "Dates must be in yyyy-MM-dd format", "status", "failed");
+        }
+        if (from.isAfter(to)) {
+            return Map.of("error", "fromDate must not be after toDate", "status", "failed");
+        }
+        try {
+            List<Holding> holdings = session.portfolioCache().holdings(session.client()::getHoldings);
+
+            // Candles come from the local store; only days it has not synced yet hit Kite
+            List<CompletableFuture<CandleSeries>> futures = new ArrayList<>(holdings.size());
+            for (Holding holding : holdings) {
+                futures.add(kiteExecutor.submitHistorical(
+                    () -> candleStore.read(holding.instrumentToken, from, to, session.client()::getDailyCandles)));
+            }
+
+            List<CandleSeries> seriesList = new ArrayList<>(holdings.size());
+            List<Holding> included = new ArrayList<>(holdings.size());
+            List<Map<String, Object>> holdingPerformance = new ArrayList<>();
+            List<String> failedSymbols = new ArrayList<>();
+            TreeSet<Integer> days = new TreeSet<>();
+            for (int i = 0; i < holdings.size(); i++) {
+                Holding holding = holdings.get(i);
+                CandleSeries series;
+                try {
+                    series = kiteExecutor.await(futures.get(i), candleSyncTimeoutMs);
+                } catch (KiteException | IOException e) {
+                    log.warn("Error fetching historical data for {}: {}", holding.tradingSymbol, e.getMessage());
+                    // Continue with next holding even if one fails
+                    failedSymbols.add(holding.tradingSymbol);
+                    continue;
+                }
+                if (series.isEmpty()) {
+                    continue;
+                }
+                seriesList.add(series);
+                included.add(holding);
+                for (int day : series.epochDays()) {
+                    days.add(day);
+                }
+
+                double startClose = series.close()[0];
+                double endClose = series.close()[series.size() - 1];
+                Map<String, Object> performance = new HashMap<>();
+                performance.put("trading_symbol", holding.tradingSymbol);
+                performance.put("instrument_token", holding.instrumentToken);
+                performance.put("start_close", startClose);
+                performance.put("end_close", endClose);
+                performance.put("return_pct", startClose == 0 ? 0.0 : (endClose - startClose) / startClose * 100);
+                performance.put("trading_days", series.size());
+                holdingPerformance.add(performance);
+            }
+
+            // Value today's quantities at each day's close. A missing candle (e.g. a halted stock)
+            // carries the previous close forward, and days before the first candle use the first close.
+            int[] cursor = new int[seriesList.size()];
+            List<Map<String, Object>> dailyPerformance = new ArrayList<>(days.size());
+            double previousValue = Double.NaN;
+            for (int day : days) {
+                double value = 0;
+                for (int h = 0; h < seriesList.size(); h++) {
+                    CandleSeries series = seriesList.get(h);
+                    while (cursor[h] + 1 < series.size() && series.epochDays()[cursor[h] + 1] <= day) {
+                        cursor[h]++;
+                    }
+                    value += series.close()[cursor[h]] * included.get(h).quantity;
+                }
+                Map<String, Object> dayData = new HashMap<>();
+                dayData.put("date", LocalDate.ofEpochDay(day).toString());
+                dayData.put("portfolio_value", value);
+                dayData.put("daily_return_pct", Double.isNaN(previousValue) || previousValue == 0
+                    ? 0.0 : (value - previousValue) / previousValue * 100);
+                dailyPerformance.add(dayData);
+                previousValue = value;
+            }
+
             Map<String, Object> response = new HashMap<>();
-            Map<String, Integer> symbolOrderCount = new HashMap<>();
-            Map<String, Double> symbolTotalValue = new HashMap<>();
-            
-            for (Order order : orders) {
-                symbolOrderCount.merge(order.tradingSymbol, 1, Integer::sum);
-                symbolTotalValue.merge(
-                    order.tradingSymbol, 
-                    Double.parseDouble(order.quantity) * Double.parseDouble(order.price), 
-                    Double::sum
-                );
+            response.put("daily_performance", dailyPerformance);
+            response.put("holding_performance", holdingPerformance);
+            if (!dailyPerformance.isEmpty()) {
+                double startValue = (Double) dailyPerformance.get(0).get("portfolio_value");
+                double endValue = (Double) dailyPerformance.get(dailyPerformance.size() - 1).get("portfolio_value");
+                response.put("start_value", startValue);
+                response.put("end_value", endValue);
+                response.put("total_return_pct", startValue == 0 ? 0.0 : (endValue - startValue) / startValue * 100);
             }
-            
-            response.put("total_orders", orders.size());
-            response.put("symbol_order_count", symbolOrderCount);
-            response.put("symbol_total_value", symbolTotalValue);
-            
+            response.put("failed_symbols", failedSymbols);
+            response.put("status", failedSymbols.isEmpty() ? "success" : "partial");
+            return response;
+        } catch (KiteException | IOException e) {
+            log.error("Error getting historical performance", e);
+            return Map.of(
+                "error", e.getMessage(),
+                "status", "failed"
+            );
+        }
+    }
+
+    @Tool(name = "get_order_analysis", resultConverter = MeteredResultConverter.class,
+        description = "Get analysis of the day's orders: fill ratio, "
+        + "average fill price, rejection rate and notional, overall and per symbol")
+    public Map<String, Object> getOrderAnalysis(
+            @ToolParam(required = false, description = ACCOUNT_ID_DESCRIPTION) String accountId) {
+        KiteSession session;
+        try {
+            session = session(accountId);
+        } catch (AccountSelectionException e) {
+            return accountError(e);
+        }
+        try {
+            // Order updates arrive over the ticker while it is connected, so the full order list
+            // is only refetched to catch anything missed during a reconnect
+            TickStream stream = liveStream(session);
+            boolean fromStream = stream != null && session.orderBook().syncedWithin(orderResyncMs);
+            if (!fromStream) {
+                session.orderBook().sync(session.client().getOrders());
+            }
+            Map<String, Object> response = session.orderBook().analysis();
+            response.put("order_source", fromStream ? "stream" : "rest");
+            response.put("status", "success");
             return response;
         } catch (KiteException | IOException e) {
             log.error("Error getting order analysis", e);
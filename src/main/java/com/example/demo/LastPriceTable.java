@@ -0,0 +1,146 @@
+package com.example.demo;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free last-traded-price table for a fixed set of instrument tokens, with a
+ * running P&L that is updated incrementally on every tick.
+ *
+ * <p>Each tracked token has a quantity {@code q} and an offset {@code b} such that its
+ * P&L at price {@code p} is {@code q * p + b}, so a tick only adds {@code q * (p - previous)}
+ * to the total. Prices are stored as raw double bits in an {@link AtomicLongArray}.
+ * {@link #track} swaps in a new layout; ticks and reads never block.
+ */
+public class LastPriceTable {
+    private static final int EMPTY = -1;
+
+    private static final class Layout {
+        final long[] tokens;
+        final int[] slots;
+        final double[] quantities;
+        final double[] offsets;
+        final AtomicLongArray prices;
+        final AtomicLongArray updatedAt;
+        final AtomicLong pnlBits = new AtomicLong();
+
+        Layout(long[] tokens, double[] quantities, double[] offsets) {
+            this.tokens = tokens;
+            this.quantities = quantities;
+            this.offsets = offsets;
+            this.prices = new AtomicLongArray(tokens.length);
+            this.updatedAt = new AtomicLongArray(tokens.length);
+            this.slots = new int[Integer.highestOneBit(Math.max(4, tokens.length) * 2) * 2];
+            Arrays.fill(slots, EMPTY);
+            int mask = slots.length - 1;
+            for (int i = 0; i < tokens.length; i++) {
+                int slot = hash(tokens[i]) & mask;
+                while (slots[slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                slots[slot] = i;
+            }
+        }
+
+        int indexOf(long token) {
+            int mask = slots.length - 1;
+            for (int slot = hash(token) & mask; ; slot = (slot + 1) & mask) {
+                int index = slots[slot];
+                if (index == EMPTY || tokens[index] == token) {
+                    return index;
+                }
+            }
+        }
+    }
+
+    private volatile Layout layout = new Layout(new long[0], new double[0], new double[0]);
+    private final AtomicLong ticks = new AtomicLong();
+
+    /**
+     * Replaces the tracked instruments. {@code seedPrices} are the last known prices (e.g. from
+     * REST, NaN if unknown) and are kept until the first tick arrives; prices already streamed
+     * for a token that stays tracked are carried over.
+     */
+    public synchronized void track(long[] tokens, double[] quantities, double[] offsets, double[] seedPrices) {
+        Layout previous = layout;
+        Layout next = new Layout(tokens.clone(), quantities.clone(), offsets.clone());
+        double pnl = 0;
+        for (int i = 0; i < tokens.length; i++) {
+            int old = previous.indexOf(tokens[i]);
+            double price = seedPrices[i];
+            long updated = 0;
+            if (old != EMPTY && previous.updatedAt.get(old) > 0) {
+                price = Double.longBitsToDouble(previous.prices.get(old));
+                updated = previous.updatedAt.get(old);
+            }
+            next.prices.set(i, Double.doubleToRawLongBits(price));
+            next.updatedAt.set(i, updated);
+            if (!Double.isNaN(price)) {
+                pnl += quantities[i] * price + offsets[i];
+            }
+        }
+        next.pnlBits.set(Double.doubleToRawLongBits(pnl));
+        layout = next;
+    }
+
+    /** Records a tick. Returns false if the token is not tracked. */
+    public boolean onTick(long token, double lastPrice) {
+        Layout current = layout;
+        int index = current.indexOf(token);
+        if (index == EMPTY) {
+            return false;
+        }
+        double previous = Double.longBitsToDouble(
+            current.prices.getAndSet(index, Double.doubleToRawLongBits(lastPrice)));
+        current.updatedAt.set(index, System.currentTimeMillis());
+        // A token without a seed price joins the total on its first tick
+        addPnl(current.pnlBits, Double.isNaN(previous)
+            ? current.quantities[index] * lastPrice + current.offsets[index]
+            : current.quantities[index] * (lastPrice - previous));
+        ticks.incrementAndGet();
+        return true;
+    }
+
+    private static void addPnl(AtomicLong pnlBits, double delta) {
+        long bits;
+        do {
+            bits = pnlBits.get();
+        } while (!pnlBits.compareAndSet(bits, Double.doubleToRawLongBits(Double.longBitsToDouble(bits) + delta)));
+    }
+
+    /** Last price of a token, or NaN if it is not tracked. */
+    public double lastPrice(long token) {
+        Layout current = layout;
+        int index = current.indexOf(token);
+        return index == EMPTY ? Double.NaN : Double.longBitsToDouble(current.prices.get(index));
+    }
+
+    /** Epoch millis of the last tick for a token, or 0 if only the seed price is known. */
+    public long lastTickAt(long token) {
+        Layout current = layout;
+        int index = current.indexOf(token);
+        return index == EMPTY ? 0 : current.updatedAt.get(index);
+    }
+
+    public double totalPnl() {
+        return Double.longBitsToDouble(layout.pnlBits.get());
+    }
+
+    public long[] trackedTokens() {
+        return layout.tokens.clone();
+    }
+
+    public int size() {
+        return layout.tokens.length;
+    }
+
+    public long getTicks() {
+        return ticks.get();
+    }
+
+    private static int hash(long token) {
+        int h = Long.hashCode(token) * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.demo;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+
+/**
+ * The exchange's time zone. Trading days, candle dates and token expiry are all in Indian
+ * time, whatever the zone of the host running the server.
+ */
+public final class MarketClock {
+    public static final ZoneId ZONE = ZoneId.of("Asia/Kolkata");
+
+    private MarketClock() {
+    }
+
+    /** The current trading date. */
+    public static LocalDate today() {
+        return LocalDate.now(ZONE);
+    }
+}
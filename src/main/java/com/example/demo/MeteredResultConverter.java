@@ -0,0 +1,65 @@
+package com.example.demo;
+
+import org.springframework.ai.tool.execution.DefaultToolCallResultConverter;
+import org.springframework.ai.tool.execution.ToolCallResultConverter;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Serializes tool results like Spring AI's default converter, and notes on the way whether a
+ * result is a failure and of which {@code error_type}. Tools report failures in their result
+ * map, so only the map's top-level {@code status} is looked at, before serialization. The
+ * notes are kept per thread for the {@link TimedToolCallback} running the call.
+ */
+public class MeteredResultConverter implements ToolCallResultConverter {
+    private static final ThreadLocal<List<String>> ERROR_TYPES = new ThreadLocal<>();
+
+    private final ToolCallResultConverter delegate = new DefaultToolCallResultConverter();
+
+    @Override
+    public String convert(Object result, Type returnType) {
+        List<String> errorTypes = ERROR_TYPES.get();
+        if (errorTypes != null && result instanceof Map<?, ?> map) {
+            collectErrorTypes(map, errorTypes);
+        }
+        return delegate.convert(result, returnType);
+    }
+
+    /** Adds the error types of a failed or partial result, one per failed order of a batch. */
+    static void collectErrorTypes(Map<?, ?> result, List<String> errorTypes) {
+        Object status = result.get("status");
+        if (!"failed".equals(status) && !"partial".equals(status)) {
+            return;
+        }
+        int before = errorTypes.size();
+        if (result.get("results") instanceof List<?> results) {
+            for (Object item : results) {
+                if (item instanceof Map<?, ?> order && "failed".equals(order.get("status"))) {
+                    errorTypes.add(errorType(order));
+                }
+            }
+        }
+        if (errorTypes.size() == before) {
+            errorTypes.add(errorType(result));
+        }
+    }
+
+    private static String errorType(Map<?, ?> result) {
+        return result.get("error_type") instanceof String errorType ? errorType : "UNCLASSIFIED";
+    }
+
+    /** Starts noting the errors of the tool call on this thread. */
+    static void begin() {
+        ERROR_TYPES.set(new ArrayList<>(1));
+    }
+
+    /** The error types noted since {@link #begin}, and stops noting them. */
+    static List<String> finish() {
+        List<String> errorTypes = ERROR_TYPES.get();
+        ERROR_TYPES.remove();
+        return errorTypes != null ? errorTypes : List.of();
+    }
+}
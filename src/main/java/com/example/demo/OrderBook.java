@@ -0,0 +1,204 @@
+package com.example.demo;
+
+import com.zerodhatech.models.Order;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The day's orders aggregated per symbol and updated incrementally. Orders are keyed by
+ * order ID; only new orders and orders whose status, quantities or prices changed are
+ * parsed, and a changed order first takes back its previous contribution. Updates come from
+ * a full order list ({@link #sync}) or from single order updates pushed by the ticker
+ * ({@link #onOrderUpdate}).
+ */
+public class OrderBook {
+    private static final String REJECTED = "REJECTED";
+
+    private final Map<String, Entry> orders = new HashMap<>();
+    private final Map<String, Totals> symbols = new HashMap<>();
+    private final Totals overall = new Totals();
+    private long lastSyncAtMillis;
+    private long applied;
+    private long unchanged;
+
+    /** The strings an order was last aggregated from, and the numbers parsed from them. */
+    private static final class Entry {
+        String symbol;
+        String status;
+        String quantity;
+        String price;
+        String filledQuantity;
+        String averagePrice;
+        double parsedQuantity;
+        double parsedPrice;
+        double parsedFilledQuantity;
+        double parsedAveragePrice;
+
+        boolean sameAs(Order order) {
+            return equal(status, order.status)
+                && equal(filledQuantity, order.filledQuantity)
+                && equal(averagePrice, order.averagePrice)
+                && equal(quantity, order.quantity)
+                && equal(price, order.price)
+                && equal(symbol, order.tradingSymbol);
+        }
+
+        private static boolean equal(String a, String b) {
+            return a == null ? b == null : a.equals(b);
+        }
+    }
+
+    private static final class Totals {
+        int orders;
+        int rejected;
+        double quantity;
+        double filledQuantity;
+        double notional;
+        double filledNotional;
+
+        void add(Entry entry, int sign) {
+            orders += sign;
+            if (REJECTED.equals(entry.status)) {
+                rejected += sign;
+            }
+            quantity += sign * entry.parsedQuantity;
+            filledQuantity += sign * entry.parsedFilledQuantity;
+            notional += sign * entry.parsedQuantity * entry.parsedPrice;
+            filledNotional += sign * entry.parsedFilledQuantity * entry.parsedAveragePrice;
+        }
+
+        Map<String, Object> describe() {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("orders", orders);
+            stats.put("rejected", rejected);
+            stats.put("rejection_rate", orders == 0 ? 0.0 : (double) rejected / orders);
+            stats.put("quantity", quantity);
+            stats.put("filled_quantity", filledQuantity);
+            stats.put("fill_ratio", quantity == 0 ? 0.0 : filledQuantity / quantity);
+            stats.put("average_fill_price", filledQuantity == 0 ? 0.0 : filledNotional / filledQuantity);
+            stats.put("notional", notional);
+            stats.put("filled_notional", filledNotional);
+            return stats;
+        }
+    }
+
+    /**
+     * Brings the book in line with the complete order list, e.g. from {@code getOrders()}.
+     * Orders missing from the list, such as the previous day's, are dropped.
+     */
+    public synchronized void sync(List<Order> dayOrders) {
+        Set<String> seen = new HashSet<>(dayOrders.size() * 2);
+        for (Order order : dayOrders) {
+            if (order.orderId != null) {
+                seen.add(order.orderId);
+                upsert(order);
+            }
+        }
+        for (Iterator<Map.Entry<String, Entry>> it = orders.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<String, Entry> entry = it.next();
+            if (!seen.contains(entry.getKey())) {
+                remove(entry.getValue());
+                it.remove();
+            }
+        }
+        lastSyncAtMillis = System.currentTimeMillis();
+    }
+
+    /** Applies one order update pushed by the ticker. */
+    public synchronized void onOrderUpdate(Order order) {
+        if (order != null && order.orderId != null) {
+            upsert(order);
+        }
+    }
+
+    /** True if a full {@link #sync} happened within the last {@code maxAgeMs}. */
+    public synchronized boolean syncedWithin(long maxAgeMs) {
+        return lastSyncAtMillis > 0 && System.currentTimeMillis() - lastSyncAtMillis <= maxAgeMs;
+    }
+
+    private void upsert(Order order) {
+        Entry entry = orders.get(order.orderId);
+        if (entry != null && entry.sameAs(order)) {
+            unchanged++;
+            return;
+        }
+        if (entry == null) {
+            entry = new Entry();
+            orders.put(order.orderId, entry);
+        } else {
+            remove(entry);
+        }
+        entry.symbol = order.tradingSymbol;
+        entry.status = order.status;
+        entry.quantity = order.quantity;
+        entry.price = order.price;
+        entry.filledQuantity = order.filledQuantity;
+        entry.averagePrice = order.averagePrice;
+        entry.parsedQuantity = parse(order.quantity);
+        entry.parsedPrice = parse(order.price);
+        entry.parsedFilledQuantity = parse(order.filledQuantity);
+        entry.parsedAveragePrice = parse(order.averagePrice);
+        overall.add(entry, 1);
+        symbols.computeIfAbsent(String.valueOf(entry.symbol), symbol -> new Totals()).add(entry, 1);
+        applied++;
+    }
+
+    private void remove(Entry entry) {
+        overall.add(entry, -1);
+        String symbol = String.valueOf(entry.symbol);
+        Totals totals = symbols.get(symbol);
+        totals.add(entry, -1);
+        if (totals.orders == 0) {
+            symbols.remove(symbol);
+        }
+    }
+
+    private static double parse(String value) {
+        if (value == null || value.isEmpty()) {
+            return 0;
+        }
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * The get_order_analysis response, built from the aggregates in time proportional to
+     * the number of symbols.
+     */
+    public synchronized Map<String, Object> analysis() {
+        Map<String, Integer> symbolOrderCount = new HashMap<>(symbols.size() * 2);
+        Map<String, Double> symbolTotalValue = new HashMap<>(symbols.size() * 2);
+        Map<String, Object> perSymbol = new HashMap<>(symbols.size() * 2);
+        for (Map.Entry<String, Totals> entry : symbols.entrySet()) {
+            symbolOrderCount.put(entry.getKey(), entry.getValue().orders);
+            symbolTotalValue.put(entry.getKey(), entry.getValue().notional);
+            perSymbol.put(entry.getKey(), entry.getValue().describe());
+        }
+
+        Map<String, Object> response = new HashMap<>(overall.describe());
+        response.remove("orders");
+        response.put("total_orders", overall.orders);
+        response.put("symbol_order_count", symbolOrderCount);
+        response.put("symbol_total_value", symbolTotalValue);
+        response.put("symbols", perSymbol);
+        return response;
+    }
+
+    public synchronized Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("orders", orders.size());
+        stats.put("symbols", symbols.size());
+        stats.put("applied_updates", applied);
+        stats.put("unchanged_updates", unchanged);
+        return stats;
+    }
+}
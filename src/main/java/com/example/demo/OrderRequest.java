@@ -0,0 +1,9 @@
+package com.example.demo;
+
+/**
+ * One order of a {@code place_orders} batch. Mirrors the parameters of {@code place_order};
+ * {@code exchange} defaults to NSE when null.
+ */
+public record OrderRequest(String tradingSymbol, String transactionType, int quantity,
+                           double price, String product, String exchange) {
+}
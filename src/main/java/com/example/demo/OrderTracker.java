@@ -0,0 +1,183 @@
+package com.example.demo;
+
+import com.zerodhatech.kiteconnect.kitehttp.exceptions.KiteException;
+import com.zerodhatech.models.Order;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+
+/**
+ * Latest state of each order by order ID, fed by the order updates the ticker pushes.
+ * {@link #await} blocks on a future that completes when the order reaches a final status,
+ * instead of polling the order book. {@code getOrderHistory} is only polled while the ticker
+ * is not connected, and once before a wait times out in case an update was missed.
+ *
+ * <p>Orders are forgotten once they have been final for the retention period, or after a day
+ * without updates otherwise, so that a long-running server does not keep every order it saw.
+ */
+public class OrderTracker {
+    /** Kite statuses after which an order no longer changes. */
+    public static final Set<String> FINAL_STATUSES = Set.of("COMPLETE", "REJECTED", "CANCELLED");
+
+    // Kite orders are day orders, so one that has not changed for a day will not change any more
+    private static final long STALE_NANOS = TimeUnit.DAYS.toNanos(1);
+
+    private final Map<String, Tracked> orders = new ConcurrentHashMap<>();
+    private final long pollIntervalNanos;
+    private final long retentionNanos;
+    private final AtomicLong nextPruneAt;
+    private final AtomicLong pushed = new AtomicLong();
+    private final AtomicLong polled = new AtomicLong();
+    private final AtomicLong waits = new AtomicLong();
+    private final AtomicLong evicted = new AtomicLong();
+
+    /** An order's latest update, where it came from, and a future completed by its final update. */
+    private static final class Tracked {
+        final CompletableFuture<Order> done = new CompletableFuture<>();
+        volatile Order latest;
+        volatile String source;
+        volatile long updatedAt = System.nanoTime();
+
+        boolean expired(long now, long retentionNanos) {
+            return now - updatedAt > (done.isDone() ? retentionNanos : Math.max(retentionNanos, STALE_NANOS));
+        }
+    }
+
+    /**
+     * Result of {@link #await}: the latest known state, or null if Kite has none yet.
+     *
+     * @param source "stream" or "rest", whichever delivered {@code order}
+     */
+    public record Result(Order order, boolean done, String source, long waitedMs) {
+    }
+
+    public OrderTracker(long pollIntervalMs, long retentionMs) {
+        this.pollIntervalNanos = TimeUnit.MILLISECONDS.toNanos(pollIntervalMs);
+        this.retentionNanos = TimeUnit.MILLISECONDS.toNanos(retentionMs);
+        this.nextPruneAt = new AtomicLong(System.nanoTime() + retentionNanos);
+    }
+
+    /** Applies one order update pushed by the ticker. */
+    public void onOrderUpdate(Order order) {
+        if (order != null && order.orderId != null) {
+            pushed.incrementAndGet();
+            apply(order, "stream");
+        }
+    }
+
+    private void apply(Order order, String source) {
+        pruneIfDue();
+        Tracked tracked = orders.computeIfAbsent(order.orderId, id -> new Tracked());
+        synchronized (tracked) {
+            // A final state is never replaced by an older, e.g. polled, update
+            if (tracked.done.isDone()) {
+                return;
+            }
+            tracked.latest = order;
+            tracked.source = source;
+            tracked.updatedAt = System.nanoTime();
+            // Completed under the lock, so that no other update lands between the two writes
+            if (FINAL_STATUSES.contains(order.status)) {
+                tracked.done.complete(order);
+            }
+        }
+    }
+
+    /** Drops expired orders, at most a few times per retention period. */
+    private void pruneIfDue() {
+        long now = System.nanoTime();
+        long due = nextPruneAt.get();
+        if (now - due < 0 || !nextPruneAt.compareAndSet(due, now + Math.max(retentionNanos / 4, 1))) {
+            return;
+        }
+        orders.values().removeIf(tracked -> {
+            if (tracked.expired(now, retentionNanos)) {
+                evicted.incrementAndGet();
+                return true;
+            }
+            return false;
+        });
+    }
+
+    /**
+     * Waits up to {@code timeoutMs} for {@code orderId} to reach a final status.
+     *
+     * @param pushLive true while the ticker delivers order updates
+     * @param history  fetches the order's history from Kite, latest state last
+     */
+    public Result await(String orderId, long timeoutMs, BooleanSupplier pushLive,
+                        Function<String, KiteCall<List<Order>>> history) throws KiteException, IOException {
+        waits.incrementAndGet();
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        Tracked tracked = orders.get(orderId);
+        // Orders placed elsewhere, or before the ticker connected, are not known yet
+        if (tracked == null || !pushLive.getAsBoolean()) {
+            poll(orderId, history);
+            tracked = orders.get(orderId);
+            if (tracked == null) {
+                // Kite has no state for this order, so it is not tracked
+                return new Result(null, false, null, (System.nanoTime() - start) / 1_000_000);
+            }
+        }
+        while (!tracked.done.isDone()) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                // One last look in case an update was lost, e.g. during a reconnect
+                poll(orderId, history);
+                break;
+            }
+            try {
+                tracked.done.get(Math.min(remaining, pollIntervalNanos), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                // Liveness is checked after every interval, so a ticker dropping mid-wait falls back to polling
+                if (!pushLive.getAsBoolean() && deadline - System.nanoTime() > 0) {
+                    poll(orderId, history);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for order " + orderId);
+            } catch (ExecutionException e) {
+                // The future is only ever completed normally
+                throw new IllegalStateException(e);
+            }
+        }
+        return new Result(tracked.latest, tracked.done.isDone(), tracked.source,
+            (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private void poll(String orderId, Function<String, KiteCall<List<Order>>> history)
+            throws KiteException, IOException {
+        polled.incrementAndGet();
+        List<Order> states = history.apply(orderId).call();
+        if (states != null && !states.isEmpty()) {
+            Order latest = states.get(states.size() - 1);
+            if (latest.orderId == null) {
+                latest.orderId = orderId;
+            }
+            apply(latest, "rest");
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("tracked_orders", orders.size());
+        stats.put("pushed_updates", pushed.get());
+        stats.put("history_polls", polled.get());
+        stats.put("waits", waits.get());
+        stats.put("evicted_orders", evicted.get());
+        return stats;
+    }
+}
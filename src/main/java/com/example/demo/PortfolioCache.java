@@ -0,0 +1,140 @@
+package com.example.demo;
+
+import com.zerodhatech.kiteconnect.kitehttp.exceptions.KiteException;
+import com.zerodhatech.models.Holding;
+import com.zerodhatech.models.Margin;
+import com.zerodhatech.models.Position;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Per-session cache in front of the Kite portfolio endpoints. Everything is
+ * dropped when an order is placed or a new session is generated.
+ */
+public class PortfolioCache {
+    private static final String ALL = "all";
+
+    private final TtlCache<String, List<Holding>> holdings;
+    private final TtlCache<String, Map<String, List<Position>>> positions;
+    private final TtlCache<String, Margin> margins;
+
+    /** The last fetched holdings, positions and margins by segment; null or empty when not cached. */
+    public record Contents(TtlCache.Stamped<List<Holding>> holdings,
+                           TtlCache.Stamped<Map<String, List<Position>>> positions,
+                           Map<String, TtlCache.Stamped<Margin>> margins) {
+    }
+
+    public PortfolioCache(long holdingsTtlMs, long positionsTtlMs, long marginsTtlMs, int maxEntries) {
+        this.holdings = new TtlCache<>("holdings", holdingsTtlMs, maxEntries);
+        this.positions = new TtlCache<>("positions", positionsTtlMs, maxEntries);
+        this.margins = new TtlCache<>("margins", marginsTtlMs, maxEntries);
+    }
+
+    public List<Holding> holdings(KiteCall<List<Holding>> loader) throws KiteException, IOException {
+        return holdings.get(ALL, loader);
+    }
+
+    public Map<String, List<Position>> positions(KiteCall<Map<String, List<Position>>> loader)
+            throws KiteException, IOException {
+        return positions.get(ALL, loader);
+    }
+
+    public Margin margins(String segment, KiteCall<Margin> loader) throws KiteException, IOException {
+        return margins.get(segment, loader);
+    }
+
+    /**
+     * Changes how long holdings and positions are reused, e.g. longer while live prices are
+     * streamed and only quantities need to come from REST.
+     */
+    public void setQuantityTtls(long holdingsTtlMs, long positionsTtlMs) {
+        holdings.setTtlMillis(holdingsTtlMs);
+        positions.setTtlMillis(positionsTtlMs);
+    }
+
+    public void refreshHoldings(KiteCall<List<Holding>> loader) throws KiteException, IOException {
+        holdings.refresh(ALL, loader);
+    }
+
+    public void refreshPositions(KiteCall<Map<String, List<Position>>> loader) throws KiteException, IOException {
+        positions.refresh(ALL, loader);
+    }
+
+    public void refreshMargins(String segment, KiteCall<Margin> loader) throws KiteException, IOException {
+        margins.refresh(segment, loader);
+    }
+
+    public Contents contents() {
+        return new Contents(holdings.peek(ALL), positions.peek(ALL), margins.contents());
+    }
+
+    /** Seeds the cache from a snapshot, see {@link TtlCache#restore}. */
+    public void restore(Contents contents) {
+        if (contents.holdings() != null) {
+            holdings.restore(ALL, contents.holdings().value(), contents.holdings().fetchedAtMillis());
+        }
+        if (contents.positions() != null) {
+            positions.restore(ALL, contents.positions().value(), contents.positions().fetchedAtMillis());
+        }
+        contents.margins().forEach((segment, margin) ->
+            margins.restore(segment, margin.value(), margin.fetchedAtMillis()));
+    }
+
+    /** Called whenever newly fetched data is cached, e.g. to persist it. */
+    public void setChangeListener(Runnable listener) {
+        holdings.setChangeListener(listener);
+        positions.setChangeListener(listener);
+        margins.setChangeListener(listener);
+    }
+
+    public Map<String, Object> holdingsFreshness() {
+        return freshness(holdings.peek(ALL));
+    }
+
+    public Map<String, Object> positionsFreshness() {
+        return freshness(positions.peek(ALL));
+    }
+
+    public Map<String, Object> marginsFreshness(String segment) {
+        return freshness(margins.peek(segment));
+    }
+
+    /** When the data in a response was fetched from Kite, and whether it was restored from a snapshot. */
+    private static Map<String, Object> freshness(TtlCache.Stamped<?> stamped) {
+        Map<String, Object> freshness = new LinkedHashMap<>();
+        if (stamped != null) {
+            freshness.put("as_of", Instant.ofEpochMilli(stamped.fetchedAtMillis()).toString());
+            freshness.put("age_ms", Math.max(0, System.currentTimeMillis() - stamped.fetchedAtMillis()));
+            freshness.put("source", stamped.restored() ? "snapshot" : "kite");
+        }
+        return freshness;
+    }
+
+    public void invalidateAll() {
+        holdings.invalidateAll();
+        positions.invalidateAll();
+        margins.invalidateAll();
+    }
+
+    public void bindMetrics(ServerMetrics metrics, String account) {
+        for (TtlCache<String, ?> cache : List.of(holdings, positions, margins)) {
+            String name = cache.getName();
+            metrics.counter("kite.cache.hits", cache, TtlCache::getHits, "account", account, "cache", name);
+            metrics.counter("kite.cache.misses", cache, TtlCache::getMisses, "account", account, "cache", name);
+            metrics.counter("kite.cache.evictions", cache, TtlCache::getEvictions, "account", account, "cache", name);
+            metrics.gauge("kite.cache.size", cache::size, "account", account, "cache", name);
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put(holdings.getName(), holdings.stats());
+        stats.put(positions.getName(), positions.stats());
+        stats.put(margins.getName(), margins.stats());
+        return stats;
+    }
+}
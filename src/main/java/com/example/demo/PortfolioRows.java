@@ -0,0 +1,157 @@
+package com.example.demo;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.zerodhatech.models.Holding;
+import com.zerodhatech.models.Position;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Typed rows for the holdings and positions tools. Records keep prices
+ * as primitive doubles and serialize to the same JSON field names as the old per-row maps,
+ * without allocating a {@code HashMap} and boxed values for every row.
+ */
+public final class PortfolioRows {
+
+    public record HoldingRow(
+        @JsonProperty("trading_symbol") String tradingSymbol,
+        @JsonProperty("day_change") double dayChange,
+        @JsonProperty("day_change_percentage") double dayChangePercentage,
+        @JsonProperty("quantity") int quantity,
+        @JsonProperty("average_price") double averagePrice,
+        @JsonProperty("last_price") double lastPrice,
+        @JsonProperty("pnl") double pnl) {
+    }
+
+    public record NetPositionRow(
+        @JsonProperty("trading_symbol") String tradingSymbol,
+        @JsonProperty("quantity") int quantity,
+        @JsonProperty("average_price") double averagePrice,
+        @JsonProperty("last_price") double lastPrice,
+        @JsonProperty("pnl") double pnl,
+        @JsonProperty("unrealised") double unrealised,
+        @JsonProperty("realised") double realised,
+        @JsonProperty("product") String product,
+        @JsonProperty("instrument_token") String instrumentToken) {
+    }
+
+    public record DayPositionRow(
+        @JsonProperty("trading_symbol") String tradingSymbol,
+        @JsonProperty("quantity") int quantity,
+        @JsonProperty("average_price") double averagePrice,
+        @JsonProperty("last_price") double lastPrice,
+        @JsonProperty("pnl") double pnl,
+        @JsonProperty("product") String product,
+        @JsonProperty("instrument_token") String instrumentToken) {
+    }
+
+    public record Holdings(List<HoldingRow> rows, double totalPnl) {
+    }
+
+    public record NetPositions(List<NetPositionRow> rows, double totalPnl, double totalUnrealised) {
+    }
+
+    public static final RowSchema<HoldingRow> HOLDING_SCHEMA = new RowSchema<>(Map.<String, Function<HoldingRow, Object>>of(
+        "trading_symbol", HoldingRow::tradingSymbol,
+        "day_change", HoldingRow::dayChange,
+        "day_change_percentage", HoldingRow::dayChangePercentage,
+        "quantity", HoldingRow::quantity,
+        "average_price", HoldingRow::averagePrice,
+        "last_price", HoldingRow::lastPrice,
+        "pnl", HoldingRow::pnl),
+        HoldingRow::tradingSymbol, HoldingRow::pnl);
+
+    public static final RowSchema<NetPositionRow> NET_POSITION_SCHEMA = new RowSchema<>(Map.<String, Function<NetPositionRow, Object>>of(
+        "trading_symbol", NetPositionRow::tradingSymbol,
+        "quantity", NetPositionRow::quantity,
+        "average_price", NetPositionRow::averagePrice,
+        "last_price", NetPositionRow::lastPrice,
+        "pnl", NetPositionRow::pnl,
+        "unrealised", NetPositionRow::unrealised,
+        "realised", NetPositionRow::realised,
+        "product", NetPositionRow::product,
+        "instrument_token", NetPositionRow::instrumentToken),
+        row -> row.instrumentToken() + ":" + row.product(), NetPositionRow::pnl);
+
+    public static final RowSchema<DayPositionRow> DAY_POSITION_SCHEMA = new RowSchema<>(Map.<String, Function<DayPositionRow, Object>>of(
+        "trading_symbol", DayPositionRow::tradingSymbol,
+        "quantity", DayPositionRow::quantity,
+        "average_price", DayPositionRow::averagePrice,
+        "last_price", DayPositionRow::lastPrice,
+        "pnl", DayPositionRow::pnl,
+        "product", DayPositionRow::product,
+        "instrument_token", DayPositionRow::instrumentToken),
+        // The same symbol on NSE and BSE is two positions, so the key is the instrument, not the symbol
+        row -> row.instrumentToken() + ":" + row.product(), DayPositionRow::pnl);
+
+    private PortfolioRows() {
+    }
+
+    /** Holding rows, with last price and P&L taken from {@code stream} when it has ticked. */
+    public static Holdings holdings(List<Holding> holdings, TickStream stream) {
+        List<HoldingRow> rows = new ArrayList<>(holdings.size());
+        double totalPnl = 0;
+        for (Holding holding : holdings) {
+            double lastPrice = TickStream.value(holding.lastPrice);
+            if (stream != null && holding.instrumentToken != null) {
+                long token = Long.parseLong(holding.instrumentToken);
+                if (stream.hasTick(token)) {
+                    lastPrice = stream.lastPrice(token);
+                }
+            }
+            double averagePrice = holding.averagePrice;
+            double pnl = holding.quantity * (lastPrice - averagePrice);
+            totalPnl += pnl;
+            rows.add(new HoldingRow(holding.tradingSymbol, holding.dayChange, holding.dayChangePercentage,
+                holding.quantity, averagePrice, lastPrice, pnl));
+        }
+        return new Holdings(rows, totalPnl);
+    }
+
+    /** Open net positions, with P&L moved by the streamed price change when available. */
+    public static NetPositions netPositions(List<Position> positions, TickStream stream) {
+        List<NetPositionRow> rows = new ArrayList<>(positions.size());
+        double totalPnl = 0;
+        double totalUnrealised = 0;
+        for (Position position : positions) {
+            if (position.netQuantity == 0) {
+                continue;
+            }
+            double lastPrice = TickStream.value(position.lastPrice);
+            double pnl = TickStream.value(position.pnl);
+            double unrealised = TickStream.value(position.unrealised);
+            if (stream != null && position.instrumentToken != null) {
+                long token = Long.parseLong(position.instrumentToken);
+                if (stream.hasTick(token)) {
+                    // Move the REST P&L by the price change since it was fetched
+                    double livePrice = stream.lastPrice(token);
+                    double delta = position.netQuantity * TickStream.multiplier(position) * (livePrice - lastPrice);
+                    lastPrice = livePrice;
+                    pnl += delta;
+                    unrealised += delta;
+                }
+            }
+            totalPnl += pnl;
+            totalUnrealised += unrealised;
+            rows.add(new NetPositionRow(position.tradingSymbol, position.netQuantity, position.averagePrice,
+                lastPrice, pnl, unrealised, TickStream.value(position.realised), position.product,
+                position.instrumentToken));
+        }
+        return new NetPositions(rows, totalPnl, totalUnrealised);
+    }
+
+    public static List<DayPositionRow> dayPositions(List<Position> positions) {
+        List<DayPositionRow> rows = new ArrayList<>(positions.size());
+        for (Position position : positions) {
+            if (position.netQuantity != 0) {
+                rows.add(new DayPositionRow(position.tradingSymbol, position.netQuantity, position.averagePrice,
+                    TickStream.value(position.lastPrice), TickStream.value(position.pnl), position.product,
+                    position.instrumentToken));
+            }
+        }
+        return rows;
+    }
+}
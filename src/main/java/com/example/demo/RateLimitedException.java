@@ -0,0 +1,13 @@
+package com.example.demo;
+
+import com.zerodhatech.kiteconnect.kitehttp.exceptions.KiteException;
+
+/**
+ * Thrown by {@link KiteRateLimiter} when a call could not get a token in time
+ * and was never sent to Kite.
+ */
+public class RateLimitedException extends KiteException {
+    public RateLimitedException(KiteEndpoint endpoint, long waitedMs) {
+        super("Too many " + endpoint.name().toLowerCase() + " requests, no slot free within " + waitedMs + " ms", 429);
+    }
+}
@@ -0,0 +1,297 @@
+package com.example.demo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Historical risk of a portfolio from daily return series: VaR and CVaR, volatility, beta
+ * against a benchmark, pairwise correlation and concentration. Series are plain
+ * {@code double[]} rows, one per instrument, and per-instrument work is split across a
+ * {@link ForkJoinPool}.
+ */
+public class RiskEngine {
+    /** Trading days per year, for annualising daily volatility. */
+    public static final int TRADING_DAYS = 252;
+
+    private static final int ROWS_PER_TASK = 8;
+    private static final int DAYS_PER_TASK = 256;
+
+    private final ForkJoinPool pool;
+
+    public RiskEngine(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Risk of one portfolio.
+     *
+     * @param valueAtRisk           loss fraction not exceeded on {@code confidence} of days
+     * @param conditionalValueAtRisk average loss fraction on the days beyond the VaR
+     * @param beta                  portfolio beta, NaN without a benchmark
+     * @param correlation           pairwise correlation of instrument returns
+     */
+    public record Result(int observations, double valueAtRisk, double conditionalValueAtRisk,
+                         double volatility, double beta, double[] weights, double[] volatilities,
+                         double[] betas, double[][] correlation, double averageCorrelation,
+                         double herfindahl, double maxWeight, double top5Weight) {
+    }
+
+    /** A pair of instruments by row index and their return correlation. */
+    public record Pair(int first, int second, double correlation) {
+    }
+
+    /**
+     * Daily simple returns of each series over the union of their trading days. A day
+     * without a candle carries the previous close forward (a zero return), and days before
+     * a series' first candle also count as zero returns.
+     *
+     * @return one row per series, each with one fewer entry than there are trading days
+     */
+    public static double[][] alignedReturns(List<CandleSeries> seriesList) {
+        int total = 0;
+        for (CandleSeries series : seriesList) {
+            total += series.size();
+        }
+        int[] days = new int[total];
+        int offset = 0;
+        for (CandleSeries series : seriesList) {
+            System.arraycopy(series.epochDays(), 0, days, offset, series.size());
+            offset += series.size();
+        }
+        Arrays.sort(days);
+        int distinct = 0;
+        for (int i = 0; i < days.length; i++) {
+            if (distinct == 0 || days[i] != days[distinct - 1]) {
+                days[distinct++] = days[i];
+            }
+        }
+
+        int observations = Math.max(0, distinct - 1);
+        double[][] returns = new double[seriesList.size()][observations];
+        for (int s = 0; s < seriesList.size(); s++) {
+            CandleSeries series = seriesList.get(s);
+            int[] seriesDays = series.epochDays();
+            double[] close = series.close();
+            double[] row = returns[s];
+            int cursor = -1;
+            double previous = Double.NaN;
+            for (int d = 0; d < distinct; d++) {
+                while (cursor + 1 < series.size() && seriesDays[cursor + 1] <= days[d]) {
+                    cursor++;
+                }
+                double current = cursor >= 0 ? close[cursor] : Double.NaN;
+                if (d > 0 && previous > 0 && current > 0) {
+                    row[d - 1] = current / previous - 1;
+                }
+                previous = current;
+            }
+        }
+        return returns;
+    }
+
+    /**
+     * @param returns   one row of daily returns per instrument, all the same length
+     * @param values    current market value per instrument, used as weights
+     * @param benchmark daily benchmark returns aligned with {@code returns}, or null
+     */
+    public Result analyse(double[][] returns, double[] values, double[] benchmark, double confidence) {
+        int n = returns.length;
+        int days = n == 0 ? 0 : returns[0].length;
+        if (days < 2) {
+            throw new IllegalArgumentException("At least two daily returns are needed");
+        }
+        if (confidence <= 0 || confidence >= 1) {
+            throw new IllegalArgumentException("confidence must be between 0 and 1");
+        }
+
+        double totalValue = 0;
+        for (double value : values) {
+            totalValue += value;
+        }
+        double[] weights = new double[n];
+        for (int i = 0; i < n; i++) {
+            weights[i] = totalValue == 0 ? 1.0 / n : values[i] / totalValue;
+        }
+
+        // Per instrument: volatility, beta and returns standardised so that a dot product of
+        // two rows is their correlation
+        double benchmarkMean = benchmark != null ? mean(benchmark) : 0;
+        double benchmarkVariance = benchmark != null ? variance(benchmark, benchmarkMean) : 0;
+        double[] volatilities = new double[n];
+        double[] betas = new double[n];
+        double[][] standardised = new double[n][];
+        parallelFor(n, ROWS_PER_TASK, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                double[] row = returns[i];
+                double mean = mean(row);
+                double variance = variance(row, mean);
+                volatilities[i] = Math.sqrt(variance * TRADING_DAYS);
+                betas[i] = benchmark != null && benchmarkVariance > 0
+                    ? covariance(row, mean, benchmark, benchmarkMean) / benchmarkVariance : Double.NaN;
+                double scale = variance > 0 ? 1 / Math.sqrt(variance * days) : 0;
+                double[] z = new double[days];
+                for (int t = 0; t < days; t++) {
+                    z[t] = (row[t] - mean) * scale;
+                }
+                standardised[i] = z;
+            }
+        });
+
+        double[][] correlation = new double[n][n];
+        parallelFor(n, ROWS_PER_TASK, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                double[] a = standardised[i];
+                correlation[i][i] = 1;
+                for (int j = i + 1; j < n; j++) {
+                    double[] b = standardised[j];
+                    double dot = 0;
+                    for (int t = 0; t < days; t++) {
+                        dot += a[t] * b[t];
+                    }
+                    correlation[i][j] = dot;
+                    correlation[j][i] = dot;
+                }
+            }
+        });
+
+        double[] portfolio = new double[days];
+        parallelFor(days, DAYS_PER_TASK, (from, to) -> {
+            for (int i = 0; i < n; i++) {
+                double weight = weights[i];
+                double[] row = returns[i];
+                for (int t = from; t < to; t++) {
+                    portfolio[t] += weight * row[t];
+                }
+            }
+        });
+
+        double[] sorted = portfolio.clone();
+        Arrays.sort(sorted);
+        int tail = Math.min(days - 1, (int) Math.floor((1 - confidence) * days));
+        double tailSum = 0;
+        for (int t = 0; t <= tail; t++) {
+            tailSum += sorted[t];
+        }
+        double valueAtRisk = Math.max(0, -sorted[tail]);
+        double conditionalValueAtRisk = Math.max(0, -tailSum / (tail + 1));
+
+        double beta = Double.NaN;
+        if (benchmark != null && benchmarkVariance > 0) {
+            beta = 0;
+            for (int i = 0; i < n; i++) {
+                beta += weights[i] * betas[i];
+            }
+        }
+
+        double correlationSum = 0;
+        for (int i = 0; i < n; i++) {
+            for (int j = i + 1; j < n; j++) {
+                correlationSum += correlation[i][j];
+            }
+        }
+        double averageCorrelation = n > 1 ? correlationSum / ((double) n * (n - 1) / 2) : Double.NaN;
+
+        double herfindahl = 0;
+        for (double weight : weights) {
+            herfindahl += weight * weight;
+        }
+        double[] byWeight = weights.clone();
+        Arrays.sort(byWeight);
+        double top5Weight = 0;
+        for (int i = byWeight.length - 1; i >= Math.max(0, byWeight.length - 5); i--) {
+            top5Weight += byWeight[i];
+        }
+
+        double portfolioMean = mean(portfolio);
+        return new Result(days, valueAtRisk, conditionalValueAtRisk,
+            Math.sqrt(variance(portfolio, portfolioMean) * TRADING_DAYS), beta, weights, volatilities, betas,
+            correlation, averageCorrelation, herfindahl, n > 0 ? byWeight[n - 1] : 0, top5Weight);
+    }
+
+    /** The {@code limit} most positively correlated distinct pairs, highest first. */
+    public static List<Pair> mostCorrelated(double[][] correlation, int limit) {
+        // Min-heap of the best pairs so far, instead of sorting all n^2 / 2 pairs
+        PriorityQueue<Pair> best = new PriorityQueue<>(Comparator.comparingDouble(Pair::correlation));
+        for (int i = 0; i < correlation.length && limit > 0; i++) {
+            for (int j = i + 1; j < correlation.length; j++) {
+                double value = correlation[i][j];
+                if (best.size() < limit) {
+                    best.add(new Pair(i, j, value));
+                } else if (value > best.peek().correlation()) {
+                    best.poll();
+                    best.add(new Pair(i, j, value));
+                }
+            }
+        }
+        List<Pair> pairs = new ArrayList<>(best);
+        pairs.sort(Comparator.comparingDouble(Pair::correlation).reversed());
+        return pairs;
+    }
+
+    private static double mean(double[] values) {
+        double sum = 0;
+        for (double value : values) {
+            sum += value;
+        }
+        return sum / values.length;
+    }
+
+    private static double variance(double[] values, double mean) {
+        double sum = 0;
+        for (double value : values) {
+            double deviation = value - mean;
+            sum += deviation * deviation;
+        }
+        return sum / values.length;
+    }
+
+    private static double covariance(double[] a, double meanA, double[] b, double meanB) {
+        double sum = 0;
+        for (int t = 0; t < a.length; t++) {
+            sum += (a[t] - meanA) * (b[t] - meanB);
+        }
+        return sum / a.length;
+    }
+
+    @FunctionalInterface
+    private interface RangeBody {
+        void run(int from, int to);
+    }
+
+    private void parallelFor(int size, int grain, RangeBody body) {
+        if (size <= grain) {
+            body.run(0, size);
+        } else {
+            pool.invoke(new RangeTask(0, size, grain, body));
+        }
+    }
+
+    private static final class RangeTask extends RecursiveAction {
+        private final int from;
+        private final int to;
+        private final int grain;
+        private final RangeBody body;
+
+        RangeTask(int from, int to, int grain, RangeBody body) {
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+            this.body = body;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= grain) {
+                body.run(from, to);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new RangeTask(from, middle, grain, body), new RangeTask(middle, to, grain, body));
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.demo;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Optional paging, filtering and field projection of a row list in a tool response. With no
+ * options set every row is returned in full, as before.
+ *
+ * <p>Rows are filtered by {@code minAbsPnl}, then by {@code sinceVersion} (only rows changed
+ * after that version), then paged with {@code offset}/{@code limit}. Totals in the response
+ * always cover every row.
+ */
+public record RowQuery(int offset, int limit, Set<String> fields, double minAbsPnl, long sinceVersion) {
+
+    /**
+     * Builds a query from optional tool parameters.
+     *
+     * @param fields      comma separated JSON field names to keep, empty for all
+     * @param knownFields field names that may be requested
+     * @throws IllegalArgumentException if a parameter is out of range or a field is unknown
+     */
+    public static RowQuery of(Integer offset, Integer limit, String fields, Double minAbsPnl, Long sinceVersion,
+                              Set<String> knownFields) {
+        if (offset != null && offset < 0) {
+            throw new IllegalArgumentException("offset must not be negative");
+        }
+        if (limit != null && limit <= 0) {
+            throw new IllegalArgumentException("limit must be positive");
+        }
+        if (sinceVersion != null && sinceVersion < 0) {
+            throw new IllegalArgumentException("sinceVersion must not be negative");
+        }
+        Set<String> projection = new LinkedHashSet<>();
+        if (fields != null && !fields.isBlank()) {
+            for (String field : fields.split(",")) {
+                String name = field.trim();
+                if (name.isEmpty()) {
+                    continue;
+                }
+                if (!knownFields.contains(name)) {
+                    throw new IllegalArgumentException("Unknown field " + name + ", expected one of " + knownFields);
+                }
+                projection.add(name);
+            }
+        }
+        return new RowQuery(
+            offset != null ? offset : 0,
+            limit != null ? limit : Integer.MAX_VALUE,
+            projection,
+            minAbsPnl != null ? Math.abs(minAbsPnl) : 0,
+            sinceVersion != null ? sinceVersion : -1);
+    }
+
+    public boolean isDelta() {
+        return sinceVersion >= 0;
+    }
+
+    /**
+     * Selects and projects {@code rows} and returns them under {@code name}, together with
+     * paging and version information. {@code versions} is updated with every row, before
+     * filtering, so that the next delta is relative to what the account holds now.
+     */
+    public <R> Map<String, Object> apply(String name, List<R> rows, RowSchema<R> schema, RowVersions<R> versions) {
+        RowVersions.Stamp stamp = stamp(rows, versions);
+        return apply(name, rows, schema, stamp, stamp.complete());
+    }
+
+    /** Updates {@code versions} with every row, before filtering, and returns their stamp. */
+    public <R> RowVersions.Stamp stamp(List<R> rows, RowVersions<R> versions) {
+        return versions.update(rows, sinceVersion);
+    }
+
+    /**
+     * As {@link #apply(String, List, RowSchema, RowVersions)} for rows already stamped. Lists
+     * returned in one response share the "delta" flag, so they pass the same {@code complete}:
+     * if any of them is missing removals, all are returned in full.
+     */
+    public <R> Map<String, Object> apply(String name, List<R> rows, RowSchema<R> schema, RowVersions.Stamp stamp,
+                                         boolean complete) {
+        // Without every removal since sinceVersion, the client gets the full list to replace its copy
+        boolean delta = isDelta() && complete;
+
+        List<R> matched = new ArrayList<>(rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            R row = rows.get(i);
+            if (minAbsPnl > 0 && !(Math.abs(schema.pnl().applyAsDouble(row)) >= minAbsPnl)) {
+                continue;
+            }
+            if (delta && stamp.rowVersions()[i] <= sinceVersion) {
+                continue;
+            }
+            matched.add(row);
+        }
+
+        int from = Math.min(offset, matched.size());
+        int to = (int) Math.min((long) from + limit, matched.size());
+        List<R> page = matched.subList(from, to);
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put(name, fields.isEmpty() ? page : project(page, schema));
+        result.put("version", stamp.version());
+        if (offset > 0 || limit != Integer.MAX_VALUE || minAbsPnl > 0 || isDelta()) {
+            result.put(name + "_matched", matched.size());
+            if (to < matched.size()) {
+                result.put(name + "_next_offset", to);
+            }
+        }
+        if (delta) {
+            result.put("delta", true);
+            result.put(name + "_removed", stamp.removedKeys());
+        } else if (isDelta()) {
+            result.put("delta", false);
+        }
+        return result;
+    }
+
+    private <R> List<Map<String, Object>> project(List<R> rows, RowSchema<R> schema) {
+        List<Function<R, Object>> accessors = new ArrayList<>(fields.size());
+        List<String> names = new ArrayList<>(fields.size());
+        for (String field : fields) {
+            Function<R, Object> accessor = schema.fields().get(field);
+            // A field of one list (e.g. unrealised on net positions) may not exist on another
+            if (accessor != null) {
+                accessors.add(accessor);
+                names.add(field);
+            }
+        }
+        List<Map<String, Object>> projected = new ArrayList<>(rows.size());
+        for (R row : rows) {
+            Map<String, Object> values = new LinkedHashMap<>(names.size() * 2);
+            for (int i = 0; i < names.size(); i++) {
+                values.put(names.get(i), accessors.get(i).apply(row));
+            }
+            projected.add(values);
+        }
+        return projected;
+    }
+}
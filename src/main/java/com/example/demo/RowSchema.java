@@ -0,0 +1,13 @@
+package com.example.demo;
+
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Named field accessors of one row type, keyed by the row's JSON field names, so that rows can
+ * be projected and filtered without reflection. {@code key} identifies a row across calls.
+ */
+public record RowSchema<R>(Map<String, Function<R, Object>> fields, Function<R, String> key,
+                           ToDoubleFunction<R> pnl) {
+}
@@ -0,0 +1,99 @@
+package com.example.demo;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Remembers the last rows returned for one list and stamps each row with the version at which
+ * its content last changed, so a client can ask for only the rows changed since its previous
+ * call. Versions come from a clock shared by all lists of a session; it starts at the current
+ * epoch millisecond so that versions from before a restart stay older than new ones.
+ *
+ * <p>Only the latest removals are remembered. A delta from a version older than the oldest
+ * forgotten removal, or older than this instance, cannot list every removed row, so its stamp
+ * is marked incomplete.
+ */
+public class RowVersions<R> {
+    static final int MAX_REMOVED = 1000;
+
+    private final AtomicLong clock;
+    private final Function<R, String> key;
+    private final int maxRemoved;
+    private final Map<String, Entry<R>> current = new HashMap<>();
+    // In the order of removal, so oldest first
+    private final Map<String, Long> removed = new LinkedHashMap<>();
+    // Versions from before this instance, e.g. from before a restart, miss removals it never saw
+    private long forgottenUpTo;
+
+    private record Entry<R>(R row, long version) {
+    }
+
+    /**
+     * Versions of the rows passed to {@link #update}, aligned with them, and the list version.
+     *
+     * @param complete false if removals after the requested version have been forgotten
+     */
+    public record Stamp(long[] rowVersions, long version, List<String> removedKeys, boolean complete) {
+    }
+
+    public RowVersions(AtomicLong clock, Function<R, String> key) {
+        this(clock, key, MAX_REMOVED);
+    }
+
+    RowVersions(AtomicLong clock, Function<R, String> key, int maxRemoved) {
+        this.clock = clock;
+        this.key = key;
+        this.maxRemoved = maxRemoved;
+        this.forgottenUpTo = clock.get();
+    }
+
+    /**
+     * Records the latest rows. A row gets a new version when it is new or differs from the last
+     * row with the same key; rows no longer present are remembered as removed.
+     */
+    public synchronized Stamp update(List<R> rows, long sinceVersion) {
+        long[] versions = new long[rows.size()];
+        Set<String> seen = new HashSet<>(rows.size() * 2);
+        for (int i = 0; i < rows.size(); i++) {
+            R row = rows.get(i);
+            String rowKey = key.apply(row);
+            seen.add(rowKey);
+            Entry<R> entry = current.get(rowKey);
+            if (entry == null || !entry.row().equals(row)) {
+                entry = new Entry<>(row, clock.incrementAndGet());
+                current.put(rowKey, entry);
+                removed.remove(rowKey);
+            }
+            versions[i] = entry.version();
+        }
+        for (Iterator<String> keys = current.keySet().iterator(); keys.hasNext(); ) {
+            String rowKey = keys.next();
+            if (!seen.contains(rowKey)) {
+                keys.remove();
+                removed.put(rowKey, clock.incrementAndGet());
+            }
+        }
+        for (Iterator<Long> oldest = removed.values().iterator(); removed.size() > maxRemoved; ) {
+            forgottenUpTo = oldest.next();
+            oldest.remove();
+        }
+
+        List<String> removedKeys = new ArrayList<>();
+        if (sinceVersion >= 0) {
+            for (Map.Entry<String, Long> entry : removed.entrySet()) {
+                if (entry.getValue() > sinceVersion) {
+                    removedKeys.add(entry.getKey());
+                }
+            }
+        }
+        return new Stamp(versions, clock.get(), removedKeys, sinceVersion >= forgottenUpTo);
+    }
+}
@@ -0,0 +1,185 @@
+package com.example.demo;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zerodhatech.kiteconnect.kitehttp.exceptions.KiteException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Latency and error metrics for MCP tools and Kite calls. There is no HTTP endpoint to scrape,
+ * so the registry is read back through the get_server_metrics tool and, when
+ * {@code kite.metrics.dump-file} is set, appended to a file as one JSON line per interval.
+ */
+@Component
+public class ServerMetrics {
+    public static final String TOOL_DURATION = "mcp.tool.duration";
+    public static final String TOOL_ERRORS = "mcp.tool.errors";
+    public static final String KITE_CALL_DURATION = "kite.call.duration";
+    public static final String KITE_CALL_ERRORS = "kite.call.errors";
+    public static final String RATE_LIMIT_WAIT = "kite.ratelimit.wait";
+
+    private static final double[] PERCENTILES = {0.5, 0.95, 0.99};
+    private static final Logger log = LoggerFactory.getLogger(ServerMetrics.class);
+
+    private final MeterRegistry registry;
+    private final Path dumpFile;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    public ServerMetrics(MeterRegistry registry, @Value("${kite.metrics.dump-file:}") String dumpFile) {
+        this.registry = registry;
+        this.dumpFile = dumpFile == null || dumpFile.isBlank() ? null : Path.of(dumpFile);
+    }
+
+    public Timer toolTimer(String tool) {
+        return timer(TOOL_DURATION, "tool", tool);
+    }
+
+    public void toolError(String tool, String errorType) {
+        Counter.builder(TOOL_ERRORS).tags("tool", tool, "error_type", errorType).register(registry).increment();
+    }
+
+    /**
+     * Runs one upstream Kite call, recording its latency and, if it fails, the exception type.
+     */
+    public <T> T timeKiteCall(String method, KiteCall<T> call) throws KiteException, IOException {
+        long start = System.nanoTime();
+        try {
+            return call.call();
+        } catch (KiteException | IOException | RuntimeException e) {
+            Counter.builder(KITE_CALL_ERRORS).tags("method", method, "exception", e.getClass().getSimpleName())
+                .register(registry).increment();
+            throw e;
+        } finally {
+            timer(KITE_CALL_DURATION, "method", method).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    public void recordRateLimitWait(KiteEndpoint endpoint, long nanos) {
+        timer(RATE_LIMIT_WAIT, "endpoint", endpoint.name().toLowerCase()).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void gauge(String name, Supplier<Number> value, String... tags) {
+        Gauge.builder(name, value).tags(tags).register(registry);
+    }
+
+    public <T> void counter(String name, T source, ToDoubleFunction<T> count, String... tags) {
+        FunctionCounter.builder(name, source, count).tags(tags).register(registry);
+    }
+
+    /** Removes every meter tagged {@code key=value}, e.g. those of an account that logged out. */
+    public void removeTagged(String key, String value) {
+        for (Meter meter : registry.getMeters()) {
+            if (value != null && value.equals(meter.getId().getTag(key))) {
+                registry.remove(meter);
+            }
+        }
+    }
+
+    private Timer timer(String name, String tagKey, String tagValue) {
+        return timers.computeIfAbsent(name + '|' + tagValue, key -> Timer.builder(name)
+            .tag(tagKey, tagValue)
+            .publishPercentiles(PERCENTILES)
+            .register(registry));
+    }
+
+    /**
+     * Every meter keyed by name and tags, e.g. {@code mcp.tool.duration{tool=get_holdings}}.
+     * Latencies are in milliseconds; percentiles and max cover the last few minutes.
+     */
+    public Map<String, Object> snapshot() {
+        Map<String, Object> meters = new TreeMap<>();
+        for (Meter meter : registry.getMeters()) {
+            if (meter.getId().getTag("phi") != null || meter.getId().getTag("le") != null) {
+                // Percentile and histogram gauges derived from timers, already part of the timer entry
+                continue;
+            }
+            Object value;
+            if (meter instanceof Timer timer) {
+                value = describe(timer.takeSnapshot());
+            } else if (meter instanceof Counter counter) {
+                value = counter.count();
+            } else if (meter instanceof FunctionCounter counter) {
+                value = counter.count();
+            } else if (meter instanceof Gauge gauge) {
+                value = gauge.value();
+            } else {
+                continue;
+            }
+            meters.put(key(meter.getId()), value);
+        }
+        return meters;
+    }
+
+    private static Map<String, Object> describe(HistogramSnapshot snapshot) {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("count", snapshot.count());
+        stats.put("mean_ms", snapshot.mean(TimeUnit.MILLISECONDS));
+        stats.put("max_ms", snapshot.max(TimeUnit.MILLISECONDS));
+        for (ValueAtPercentile percentile : snapshot.percentileValues()) {
+            stats.put("p" + Math.round(percentile.percentile() * 100) + "_ms", percentile.value(TimeUnit.MILLISECONDS));
+        }
+        return stats;
+    }
+
+    private static String key(Meter.Id id) {
+        if (id.getTags().isEmpty()) {
+            return id.getName();
+        }
+        StringBuilder key = new StringBuilder(id.getName()).append('{');
+        for (Tag tag : id.getTags()) {
+            if (key.charAt(key.length() - 1) != '{') {
+                key.append(',');
+            }
+            key.append(tag.getKey()).append('=').append(tag.getValue());
+        }
+        return key.append('}').toString();
+    }
+
+    @Scheduled(fixedDelayString = "${kite.metrics.dump-interval-ms:60000}",
+        initialDelayString = "${kite.metrics.dump-interval-ms:60000}")
+    public void dump() {
+        if (dumpFile == null) {
+            return;
+        }
+        Map<String, Object> line = new LinkedHashMap<>();
+        line.put("timestamp", Instant.now().toString());
+        line.put("meters", snapshot());
+        try {
+            Path parent = dumpFile.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            Files.writeString(dumpFile, objectMapper.writeValueAsString(line) + "\n", StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            log.warn("Could not write metrics to {}: {}", dumpFile, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.demo;
+
+import com.zerodhatech.models.Order;
+
+/**
+ * A live feed of last-traded prices and order updates, normally {@link KiteTickerSource}.
+ */
+public interface TickSource {
+
+    @FunctionalInterface
+    interface TickListener {
+        void onTick(long instrumentToken, double lastPrice);
+    }
+
+    @FunctionalInterface
+    interface OrderListener {
+        void onOrderUpdate(Order order);
+    }
+
+    /** Receives the account's order updates once started. Must be set before {@link #start}. */
+    void setOrderListener(OrderListener listener);
+
+    /** Connects and starts delivering ticks for subscribed tokens to {@code listener}. */
+    void start(TickListener listener);
+
+    /** Sets the tokens to stream. Tokens not in the list are unsubscribed. */
+    void subscribe(long[] instrumentTokens);
+
+    boolean isConnected();
+
+    void stop();
+}
@@ -0,0 +1,9 @@
+package com.example.demo;
+
+/**
+ * Creates the live {@link TickSource} of a logged in account.
+ */
+@FunctionalInterface
+public interface TickSourceFactory {
+    TickSource create(String accessToken, String apiKey);
+}
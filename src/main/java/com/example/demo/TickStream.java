@@ -0,0 +1,174 @@
+package com.example.demo;
+
+import com.zerodhatech.models.Holding;
+import com.zerodhatech.models.Position;
+
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Streams last-traded prices for the instruments in the current holdings and net positions.
+ * Each book keeps its own {@link LastPriceTable} so its P&L is maintained per tick.
+ *
+ * <p>For a holding the P&L at price {@code p} is {@code quantity * (p - averagePrice)}. For a
+ * position it is the REST P&L moved by {@code netQuantity * multiplier * (p - restLastPrice)},
+ * which keeps realised P&L intact.
+ */
+public class TickStream {
+    private final TickSource source;
+    private final LastPriceTable holdingPrices = new LastPriceTable();
+    private final LastPriceTable positionPrices = new LastPriceTable();
+
+    private List<Holding> trackedHoldings;
+    private List<Position> trackedPositions;
+
+    public TickStream(TickSource source) {
+        this.source = source;
+    }
+
+    public void start() {
+        source.start(this::onTick);
+    }
+
+    public void stop() {
+        source.stop();
+    }
+
+    public boolean isLive() {
+        return source.isConnected();
+    }
+
+    void onTick(long instrumentToken, double lastPrice) {
+        holdingPrices.onTick(instrumentToken, lastPrice);
+        positionPrices.onTick(instrumentToken, lastPrice);
+    }
+
+    /**
+     * Tracks the given books. Cheap to call on every tool call: the tables are only rebuilt
+     * when a freshly fetched list is passed in.
+     */
+    public synchronized void track(List<Holding> holdings, List<Position> netPositions) {
+        boolean changed = false;
+        if (holdings != null && holdings != trackedHoldings) {
+            trackHoldings(holdings);
+            trackedHoldings = holdings;
+            changed = true;
+        }
+        if (netPositions != null && netPositions != trackedPositions) {
+            trackPositions(netPositions);
+            trackedPositions = netPositions;
+            changed = true;
+        }
+        if (changed) {
+            Set<Long> tokens = new LinkedHashSet<>();
+            for (long token : holdingPrices.trackedTokens()) {
+                tokens.add(token);
+            }
+            for (long token : positionPrices.trackedTokens()) {
+                tokens.add(token);
+            }
+            long[] all = new long[tokens.size()];
+            int i = 0;
+            for (Long token : tokens) {
+                all[i++] = token;
+            }
+            source.subscribe(all);
+        }
+    }
+
+    private void trackHoldings(List<Holding> holdings) {
+        Book book = new Book();
+        for (Holding holding : holdings) {
+            double quantity = holding.quantity;
+            book.add(holding.instrumentToken, quantity, -quantity * value(holding.averagePrice), value(holding.lastPrice));
+        }
+        book.applyTo(holdingPrices);
+    }
+
+    private void trackPositions(List<Position> positions) {
+        Book book = new Book();
+        for (Position position : positions) {
+            if (position.netQuantity == 0) {
+                continue;
+            }
+            double quantity = position.netQuantity * multiplier(position);
+            double lastPrice = value(position.lastPrice);
+            double offset = value(position.pnl) - quantity * (Double.isNaN(lastPrice) ? 0 : lastPrice);
+            book.add(position.instrumentToken, quantity, offset, lastPrice);
+        }
+        book.applyTo(positionPrices);
+    }
+
+    public double lastPrice(long instrumentToken) {
+        double price = positionPrices.lastPrice(instrumentToken);
+        return Double.isNaN(price) ? holdingPrices.lastPrice(instrumentToken) : price;
+    }
+
+    /** True once at least one tick has arrived for the token since it was tracked. */
+    public boolean hasTick(long instrumentToken) {
+        return holdingPrices.lastTickAt(instrumentToken) > 0 || positionPrices.lastTickAt(instrumentToken) > 0;
+    }
+
+    public double holdingsPnl() {
+        return holdingPrices.totalPnl();
+    }
+
+    public double positionsPnl() {
+        return positionPrices.totalPnl();
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("connected", source.isConnected());
+        stats.put("holding_tokens", holdingPrices.size());
+        stats.put("position_tokens", positionPrices.size());
+        stats.put("ticks", holdingPrices.getTicks() + positionPrices.getTicks());
+        return stats;
+    }
+
+    static double value(Double value) {
+        return value != null ? value : Double.NaN;
+    }
+
+    static double multiplier(Position position) {
+        return position.multiplier > 0 ? position.multiplier : 1;
+    }
+
+    /** Collects one book's tokens, merging rows that share a token. */
+    private static final class Book {
+        private final Map<Long, double[]> rows = new LinkedHashMap<>();
+
+        void add(String instrumentToken, double quantity, double offset, double lastPrice) {
+            if (instrumentToken == null) {
+                return;
+            }
+            double[] row = rows.computeIfAbsent(Long.parseLong(instrumentToken),
+                t -> new double[] {0, 0, Double.NaN});
+            row[0] += quantity;
+            row[1] += offset;
+            if (!Double.isNaN(lastPrice)) {
+                row[2] = lastPrice;
+            }
+        }
+
+        void applyTo(LastPriceTable table) {
+            int n = rows.size();
+            long[] tokens = new long[n];
+            double[] quantities = new double[n];
+            double[] offsets = new double[n];
+            double[] seeds = new double[n];
+            int i = 0;
+            for (Map.Entry<Long, double[]> entry : rows.entrySet()) {
+                tokens[i] = entry.getKey();
+                quantities[i] = entry.getValue()[0];
+                offsets[i] = entry.getValue()[1];
+                seeds[i] = entry.getValue()[2];
+                i++;
+            }
+            table.track(tokens, quantities, offsets, seeds);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.demo;
+
+import io.micrometer.core.instrument.Timer;
+import org.springframework.ai.chat.model.ToolContext;
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.ai.tool.definition.ToolDefinition;
+import org.springframework.ai.tool.metadata.ToolMetadata;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Wraps a tool so that every call is timed, and failed results are counted by their
+ * {@code error_type}. Tools report failures in their result instead of throwing; the
+ * {@link MeteredResultConverter} of the tool notes them while converting the result.
+ */
+public class TimedToolCallback implements ToolCallback {
+    private final ToolCallback delegate;
+    private final ServerMetrics metrics;
+    private final String name;
+    private final Timer timer;
+
+    public TimedToolCallback(ToolCallback delegate, ServerMetrics metrics) {
+        this.delegate = delegate;
+        this.metrics = metrics;
+        this.name = delegate.getToolDefinition().name();
+        this.timer = metrics.toolTimer(name);
+    }
+
+    @Override
+    public ToolDefinition getToolDefinition() {
+        return delegate.getToolDefinition();
+    }
+
+    @Override
+    public ToolMetadata getToolMetadata() {
+        return delegate.getToolMetadata();
+    }
+
+    @Override
+    public String call(String toolInput) {
+        return call(toolInput, null);
+    }
+
+    @Override
+    public String call(String toolInput, ToolContext toolContext) {
+        long start = System.nanoTime();
+        boolean threw = false;
+        MeteredResultConverter.begin();
+        try {
+            return toolContext != null ? delegate.call(toolInput, toolContext) : delegate.call(toolInput);
+        } catch (RuntimeException e) {
+            threw = true;
+            metrics.toolError(name, "EXCEPTION");
+            throw e;
+        } finally {
+            List<String> errorTypes = MeteredResultConverter.finish();
+            if (!threw) {
+                for (String errorType : errorTypes) {
+                    metrics.toolError(name, errorType);
+                }
+            }
+            timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+}
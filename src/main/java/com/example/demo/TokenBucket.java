@@ -0,0 +1,63 @@
+package com.example.demo;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token bucket rate limiter. Callers that find the bucket empty reserve the
+ * next token and sleep until it is due, so waiters are served in arrival order.
+ */
+public class TokenBucket {
+    private final double permitsPerNano;
+    private final double capacity;
+
+    private double tokens;
+    private long lastRefill;
+
+    public TokenBucket(double permitsPerSecond, int burst) {
+        if (permitsPerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("permitsPerSecond must be > 0 and burst >= 1");
+        }
+        this.permitsPerNano = permitsPerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.capacity = burst;
+        this.tokens = burst;
+        this.lastRefill = System.nanoTime();
+    }
+
+    /**
+     * Takes one token, waiting at most {@code maxWaitMs} for it.
+     *
+     * @return false if the token would not be available in time; nothing is reserved in that case
+     */
+    public boolean acquire(long maxWaitMs) throws InterruptedException {
+        long waitNanos = reserve(TimeUnit.MILLISECONDS.toNanos(maxWaitMs));
+        if (waitNanos < 0) {
+            return false;
+        }
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+        return true;
+    }
+
+    private synchronized long reserve(long maxWaitNanos) {
+        long now = System.nanoTime();
+        tokens = Math.min(capacity, tokens + (now - lastRefill) * permitsPerNano);
+        lastRefill = now;
+
+        if (tokens >= 1) {
+            tokens -= 1;
+            return 0;
+        }
+        long waitNanos = (long) Math.ceil((1 - tokens) / permitsPerNano);
+        if (waitNanos > maxWaitNanos) {
+            return -1;
+        }
+        tokens -= 1;
+        return waitNanos;
+    }
+
+    public synchronized double availableTokens() {
+        long now = System.nanoTime();
+        return Math.min(capacity, tokens + (now - lastRefill) * permitsPerNano);
+    }
+}
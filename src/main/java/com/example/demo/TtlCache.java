@@ -0,0 +1,172 @@
+package com.example.demo;
+
+import com.zerodhatech.kiteconnect.kitehttp.exceptions.KiteException;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Small read-through cache with a fixed time-to-live and LRU eviction once
+ * {@code maxEntries} is reached. Entries remember when they were fetched, so that the last
+ * value can be persisted and restored with its age.
+ */
+public class TtlCache<K, V> {
+    private final String name;
+    private volatile long ttlNanos;
+    private final int maxEntries;
+    private final LinkedHashMap<K, Entry<V>> entries;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    // Bumped on every invalidation so a load that started before it is not stored afterwards
+    private long generation;
+    private volatile Runnable changeListener;
+
+    private record Entry<V>(V value, long loadedAt, long fetchedAtMillis, boolean restored) {
+    }
+
+    /** A cached value, when it was fetched from Kite, and whether it came from a snapshot. */
+    public record Stamped<V>(V value, long fetchedAtMillis, boolean restored) {
+    }
+
+    public TtlCache(String name, long ttlMillis, int maxEntries) {
+        this.name = name;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                if (size() > TtlCache.this.maxEntries) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public V get(K key, KiteCall<V> loader) throws KiteException, IOException {
+        long loadGeneration;
+        synchronized (this) {
+            Entry<V> entry = entries.get(key);
+            if (entry != null && System.nanoTime() - entry.loadedAt() < ttlNanos) {
+                hits.incrementAndGet();
+                return entry.value();
+            }
+            loadGeneration = generation;
+        }
+        misses.incrementAndGet();
+        return load(key, loader, loadGeneration);
+    }
+
+    /**
+     * Fetches {@code key} even if a fresh value is cached, e.g. to revalidate restored data.
+     * Like {@link #get}, the value is not stored if the cache was invalidated meanwhile.
+     */
+    public V refresh(K key, KiteCall<V> loader) throws KiteException, IOException {
+        long loadGeneration;
+        synchronized (this) {
+            loadGeneration = generation;
+        }
+        return load(key, loader, loadGeneration);
+    }
+
+    private V load(K key, KiteCall<V> loader, long loadGeneration) throws KiteException, IOException {
+        // Load outside the lock so a slow Kite call does not block other keys
+        V value = loader.call();
+        boolean stored = false;
+        synchronized (this) {
+            if (value != null && loadGeneration == generation) {
+                entries.put(key, new Entry<>(value, System.nanoTime(), System.currentTimeMillis(), false));
+                stored = true;
+            }
+        }
+        if (stored) {
+            changed();
+        }
+        return value;
+    }
+
+    /**
+     * Stores a value from a snapshot. It is served for one time-to-live from now, whatever its
+     * age, so that the first reads after a restart do not wait for Kite.
+     */
+    public synchronized void restore(K key, V value, long fetchedAtMillis) {
+        entries.put(key, new Entry<>(value, System.nanoTime(), fetchedAtMillis, true));
+    }
+
+    /** The last value stored under {@code key}, even if expired, without counting a hit or miss. */
+    public synchronized Stamped<V> peek(K key) {
+        Entry<V> entry = entries.get(key);
+        return entry != null ? new Stamped<>(entry.value(), entry.fetchedAtMillis(), entry.restored()) : null;
+    }
+
+    /** Every entry, even if expired. */
+    public synchronized Map<K, Stamped<V>> contents() {
+        Map<K, Stamped<V>> contents = new LinkedHashMap<>();
+        for (Map.Entry<K, Entry<V>> entry : entries.entrySet()) {
+            Entry<V> value = entry.getValue();
+            contents.put(entry.getKey(), new Stamped<>(value.value(), value.fetchedAtMillis(), value.restored()));
+        }
+        return contents;
+    }
+
+    /** Called, outside the cache lock, whenever a newly fetched value is stored. */
+    public void setChangeListener(Runnable changeListener) {
+        this.changeListener = changeListener;
+    }
+
+    private void changed() {
+        Runnable listener = changeListener;
+        if (listener != null) {
+            listener.run();
+        }
+    }
+
+    public void setTtlMillis(long ttlMillis) {
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+    }
+
+    public synchronized void invalidateAll() {
+        generation++;
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    public Map<String, Object> stats() {
+        long h = hits.get();
+        long m = misses.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("hits", h);
+        stats.put("misses", m);
+        stats.put("hit_ratio", h + m == 0 ? 0.0 : (double) h / (h + m));
+        stats.put("evictions", evictions.get());
+        stats.put("size", size());
+        stats.put("ttl_ms", TimeUnit.NANOSECONDS.toMillis(ttlNanos));
+        return stats;
+    }
+}
@@ -0,0 +1,351 @@
+package com.example.demo;
+
+import com.zerodhatech.models.Holding;
+import com.zerodhatech.models.Margin;
+import com.zerodhatech.models.Position;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.time.LocalTime;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * On-disk snapshot of the logged in accounts and their last holdings, positions and margins,
+ * so that a restart resumes without a new login and without cold Kite calls. The instrument
+ * master has its own snapshot, see {@link InstrumentRegistry}.
+ *
+ * <p>The file is written in the background whenever new data is cached:
+ * <pre>
+ * header:  int magic, int version, long savedAt, int accounts
+ * account: accountId, accessToken, publicToken, long loggedInAt,
+ *          then holdings, positions and margins, each with its long fetchedAt
+ * </pre>
+ * Only the Kite fields the tools read are kept. The file holds access tokens, so it is made
+ * readable by its owner only where the file system allows it.
+ */
+@Component
+public class WarmStateStore {
+    private static final Logger log = LoggerFactory.getLogger(WarmStateStore.class);
+    // Kite access tokens expire at 6 AM IST the day after login
+    private static final LocalTime TOKEN_EXPIRY = LocalTime.of(6, 0);
+
+    static final int MAGIC = 0x4B574D53; // "KWMS"
+    static final int VERSION = 1;
+
+    public record AccountState(String accountId, String accessToken, String publicToken, long loggedInAtMillis,
+                               PortfolioCache.Contents portfolio) {
+    }
+
+    private final KiteExecutor kiteExecutor;
+    private final Path file;
+    private final AtomicBoolean pending = new AtomicBoolean();
+    private final AtomicLong writes = new AtomicLong();
+    private volatile Supplier<List<AccountState>> source;
+    private volatile long lastWriteMs = -1;
+
+    public WarmStateStore(KiteExecutor kiteExecutor,
+                          @Value("${kite.warm-state.file:${user.home}/.kite-mcp/warm-state.bin}") String file) {
+        this.kiteExecutor = kiteExecutor;
+        this.file = file == null || file.isBlank() ? null : Path.of(file);
+    }
+
+    /**
+     * The accounts of the last snapshot whose access token has not expired yet. A missing,
+     * unreadable or older format file yields no accounts.
+     */
+    public List<AccountState> load() {
+        if (file == null || !Files.exists(file)) {
+            return List.of();
+        }
+        try {
+            List<AccountState> accounts = new ArrayList<>();
+            for (AccountState account : readFrom(file)) {
+                if (tokenValid(account.loggedInAtMillis(), ZonedDateTime.now(MarketClock.ZONE))) {
+                    accounts.add(account);
+                } else {
+                    log.info("Access token of account {} has expired, it needs to log in again", account.accountId());
+                }
+            }
+            return accounts;
+        } catch (IOException e) {
+            log.warn("Could not read warm state {}: {}", file, e.getMessage());
+            return List.of();
+        }
+    }
+
+    /**
+     * Writes the state returned by {@code state} in the background. Changes made while a write
+     * is queued are picked up by that write.
+     */
+    public void saveAsync(Supplier<List<AccountState>> state) {
+        if (file == null) {
+            return;
+        }
+        source = state;
+        if (pending.compareAndSet(false, true)) {
+            kiteExecutor.getExecutor().execute(() -> {
+                pending.set(false);
+                save();
+            });
+        }
+    }
+
+    @PreDestroy
+    public void flush() {
+        if (file != null && source != null) {
+            save();
+        }
+    }
+
+    private synchronized void save() {
+        long start = System.nanoTime();
+        try {
+            writeTo(file, source.get());
+            writes.incrementAndGet();
+            lastWriteMs = (System.nanoTime() - start) / 1_000_000;
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not write warm state {}: {}", file, e.getMessage());
+        }
+    }
+
+    /** True while a token from a login at {@code loggedInAtMillis} is still accepted by Kite. */
+    static boolean tokenValid(long loggedInAtMillis, ZonedDateTime now) {
+        ZonedDateTime expiry = now.toLocalDate().atTime(TOKEN_EXPIRY).atZone(MarketClock.ZONE);
+        ZonedDateTime lastExpiry = now.isBefore(expiry) ? expiry.minusDays(1) : expiry;
+        return loggedInAtMillis > lastExpiry.toInstant().toEpochMilli();
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", file != null);
+        stats.put("writes", writes.get());
+        stats.put("last_write_ms", lastWriteMs);
+        return stats;
+    }
+
+    static void writeTo(Path file, List<AccountState> accounts) throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.deleteIfExists(tmp);
+        try {
+            Files.createFile(tmp, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+        } catch (UnsupportedOperationException e) {
+            Files.createFile(tmp);
+        }
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(System.currentTimeMillis());
+            out.writeInt(accounts.size());
+            for (AccountState account : accounts) {
+                writeString(out, account.accountId());
+                writeString(out, account.accessToken());
+                writeString(out, account.publicToken());
+                out.writeLong(account.loggedInAtMillis());
+                PortfolioCache.Contents portfolio = account.portfolio();
+                writeHoldings(out, portfolio.holdings());
+                writePositions(out, portfolio.positions());
+                out.writeInt(portfolio.margins().size());
+                for (Map.Entry<String, TtlCache.Stamped<Margin>> margin : portfolio.margins().entrySet()) {
+                    writeString(out, margin.getKey());
+                    writeMargin(out, margin.getValue());
+                }
+            }
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    static List<AccountState> readFrom(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Unsupported warm state " + file);
+            }
+            in.readLong();
+            int count = in.readInt();
+            List<AccountState> accounts = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                String accountId = readString(in);
+                String accessToken = readString(in);
+                String publicToken = readString(in);
+                long loggedInAt = in.readLong();
+                TtlCache.Stamped<List<Holding>> holdings = readHoldings(in);
+                TtlCache.Stamped<Map<String, List<Position>>> positions = readPositions(in);
+                int segments = in.readInt();
+                Map<String, TtlCache.Stamped<Margin>> margins = new LinkedHashMap<>();
+                for (int s = 0; s < segments; s++) {
+                    margins.put(readString(in), readMargin(in));
+                }
+                accounts.add(new AccountState(accountId, accessToken, publicToken, loggedInAt,
+                    new PortfolioCache.Contents(holdings, positions, margins)));
+            }
+            return accounts;
+        }
+    }
+
+    private static void writeHoldings(DataOutputStream out, TtlCache.Stamped<List<Holding>> holdings)
+            throws IOException {
+        out.writeBoolean(holdings != null);
+        if (holdings == null) {
+            return;
+        }
+        out.writeLong(holdings.fetchedAtMillis());
+        out.writeInt(holdings.value().size());
+        for (Holding holding : holdings.value()) {
+            writeString(out, holding.tradingSymbol);
+            writeString(out, holding.exchange);
+            writeString(out, holding.instrumentToken);
+            writeString(out, holding.product);
+            out.writeInt(holding.quantity);
+            writeDouble(out, holding.averagePrice);
+            writeDouble(out, holding.lastPrice);
+            writeDouble(out, holding.pnl);
+            out.writeDouble(holding.dayChange);
+            out.writeDouble(holding.dayChangePercentage);
+        }
+    }
+
+    private static TtlCache.Stamped<List<Holding>> readHoldings(DataInputStream in) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        long fetchedAt = in.readLong();
+        int count = in.readInt();
+        List<Holding> holdings = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Holding holding = new Holding();
+            holding.tradingSymbol = readString(in);
+            holding.exchange = readString(in);
+            holding.instrumentToken = readString(in);
+            holding.product = readString(in);
+            holding.quantity = in.readInt();
+            holding.averagePrice = readDouble(in);
+            holding.lastPrice = readDouble(in);
+            holding.pnl = readDouble(in);
+            holding.dayChange = in.readDouble();
+            holding.dayChangePercentage = in.readDouble();
+            holdings.add(holding);
+        }
+        return new TtlCache.Stamped<>(holdings, fetchedAt, true);
+    }
+
+    private static void writePositions(DataOutputStream out, TtlCache.Stamped<Map<String, List<Position>>> positions)
+            throws IOException {
+        out.writeBoolean(positions != null);
+        if (positions == null) {
+            return;
+        }
+        out.writeLong(positions.fetchedAtMillis());
+        out.writeInt(positions.value().size());
+        for (Map.Entry<String, List<Position>> list : positions.value().entrySet()) {
+            writeString(out, list.getKey());
+            out.writeInt(list.getValue().size());
+            for (Position position : list.getValue()) {
+                writeString(out, position.tradingSymbol);
+                writeString(out, position.exchange);
+                writeString(out, position.instrumentToken);
+                writeString(out, position.product);
+                out.writeInt(position.netQuantity);
+                out.writeInt(position.multiplier);
+                out.writeDouble(position.averagePrice);
+                out.writeDouble(position.closePrice);
+                writeDouble(out, position.lastPrice);
+                writeDouble(out, position.pnl);
+                writeDouble(out, position.unrealised);
+                writeDouble(out, position.realised);
+            }
+        }
+    }
+
+    private static TtlCache.Stamped<Map<String, List<Position>>> readPositions(DataInputStream in)
+            throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        long fetchedAt = in.readLong();
+        int lists = in.readInt();
+        Map<String, List<Position>> positions = new HashMap<>();
+        for (int l = 0; l < lists; l++) {
+            String key = readString(in);
+            int count = in.readInt();
+            List<Position> list = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                Position position = new Position();
+                position.tradingSymbol = readString(in);
+                position.exchange = readString(in);
+                position.instrumentToken = readString(in);
+                position.product = readString(in);
+                position.netQuantity = in.readInt();
+                position.multiplier = in.readInt();
+                position.averagePrice = in.readDouble();
+                position.closePrice = in.readDouble();
+                position.lastPrice = readDouble(in);
+                position.pnl = readDouble(in);
+                position.unrealised = readDouble(in);
+                position.realised = readDouble(in);
+                list.add(position);
+            }
+            positions.put(key, list);
+        }
+        return new TtlCache.Stamped<>(positions, fetchedAt, true);
+    }
+
+    private static void writeMargin(DataOutputStream out, TtlCache.Stamped<Margin> margin) throws IOException {
+        Margin value = margin.value();
+        out.writeLong(margin.fetchedAtMillis());
+        writeString(out, value.net);
+        writeString(out, value.available != null ? value.available.cash : null);
+        writeString(out, value.utilised != null ? value.utilised.debits : null);
+    }
+
+    private static TtlCache.Stamped<Margin> readMargin(DataInputStream in) throws IOException {
+        long fetchedAt = in.readLong();
+        Margin margin = new Margin();
+        margin.net = readString(in);
+        margin.available = margin.new Available();
+        margin.available.cash = readString(in);
+        margin.utilised = margin.new Utilised();
+        margin.utilised.debits = readString(in);
+        return new TtlCache.Stamped<>(margin, fetchedAt, true);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    // Kite leaves some prices null; NaN stands in for null in the file
+    private static void writeDouble(DataOutputStream out, Double value) throws IOException {
+        out.writeDouble(value != null ? value : Double.NaN);
+    }
+
+    private static Double readDouble(DataInputStream in) throws IOException {
+        double value = in.readDouble();
+        return Double.isNaN(value) ? null : value;
+    }
+}
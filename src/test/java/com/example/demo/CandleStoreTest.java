@@ -0,0 +1,74 @@
+package com.example.demo;
+
+import com.zerodhatech.models.HistoricalData;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CandleStoreTest {
+
+    private static final LocalDate START = LocalDate.of(2024, 1, 1);
+
+    @TempDir
+    Path dir;
+
+    private final List<LocalDate[]> requests = new ArrayList<>();
+
+    private List<HistoricalData> fetch(String token, LocalDate from, LocalDate to) {
+        requests.add(new LocalDate[] {from, to});
+        List<HistoricalData> candles = new ArrayList<>();
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            HistoricalData candle = new HistoricalData();
+            candle.timeStamp = day + "T00:00:00+0530";
+            candle.close = day.toEpochDay() - START.toEpochDay();
+            candles.add(candle);
+        }
+        return candles;
+    }
+
+    @Test
+    void servesRepeatedReadsFromDisk() throws Throwable {
+        CandleStore store = new CandleStore(dir.toString());
+
+        CandleSeries first = store.read("256265", START, START.plusDays(9), this::fetch);
+        CandleSeries second = store.read("256265", START.plusDays(2), START.plusDays(5), this::fetch);
+
+        assertEquals(10, first.size());
+        assertEquals(4, second.size());
+        assertEquals(2.0, second.close()[0], 0.0);
+        assertEquals(1, requests.size());
+    }
+
+    @Test
+    void fetchesOnlyMissingRanges() throws Throwable {
+        CandleStore store = new CandleStore(dir.toString());
+        store.read("256265", START.plusDays(5), START.plusDays(9), this::fetch);
+
+        CandleSeries series = store.read("256265", START, START.plusDays(14), this::fetch);
+
+        assertEquals(3, requests.size());
+        assertEquals(START, requests.get(1)[0]);
+        assertEquals(START.plusDays(4), requests.get(1)[1]);
+        assertEquals(START.plusDays(10), requests.get(2)[0]);
+        assertEquals(15, series.size());
+        for (int i = 0; i < series.size(); i++) {
+            assertEquals(i, series.close()[i], 0.0);
+        }
+    }
+
+    @Test
+    void survivesRestart() throws Throwable {
+        new CandleStore(dir.toString()).read("738561", START, START.plusDays(9), this::fetch);
+
+        CandleSeries series = new CandleStore(dir.toString()).read("738561", START, START.plusDays(9), this::fetch);
+
+        assertEquals(10, series.size());
+        assertEquals(1, requests.size());
+    }
+}
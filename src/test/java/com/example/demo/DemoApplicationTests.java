@@ -3,7 +3,8 @@ package com.example.demo;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+// The stdio transport would read the test JVM's stdin, which Surefire uses to talk to the fork
+@SpringBootTest(properties = "spring.ai.mcp.server.stdio=false")
 class DemoApplicationTests {
 
     @Test
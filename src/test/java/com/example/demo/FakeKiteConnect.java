@@ -0,0 +1,361 @@
+package com.example.demo;
+
+import com.zerodhatech.kiteconnect.KiteConnect;
+import com.zerodhatech.kiteconnect.kitehttp.exceptions.InputException;
+import com.zerodhatech.kiteconnect.kitehttp.exceptions.KiteException;
+import com.zerodhatech.kiteconnect.kitehttp.exceptions.NetworkException;
+import com.zerodhatech.models.HistoricalData;
+import com.zerodhatech.models.Holding;
+import com.zerodhatech.models.Instrument;
+import com.zerodhatech.models.Margin;
+import com.zerodhatech.models.Order;
+import com.zerodhatech.models.OrderParams;
+import com.zerodhatech.models.Position;
+import com.zerodhatech.models.User;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link KiteConnect} that serves a synthetic portfolio from memory instead of calling Kite.
+ * KiteConnect's API root is fixed, so the fake replaces the client rather than the HTTP
+ * server behind it; everything above KiteConnect, rate limiting and caching included, runs
+ * as in production.
+ *
+ * <p>Upstream behaviour can be configured: a latency range, a share of calls failing with a
+ * server error, and a per-second limit beyond which calls fail with HTTP 429 like Kite's. Placed
+ * orders complete after a delay and their updates are pushed to {@link #setOrderFeed}.
+ */
+class FakeKiteConnect extends KiteConnect {
+    static final String ACCESS_TOKEN = "fake-access-token";
+    static final long BENCHMARK_TOKEN = 256265;
+
+    private static final ScheduledExecutorService FILLS = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "fake-kite-fills");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final List<Holding> holdings;
+    private final Map<String, List<Position>> positions;
+    private final List<Order> orders;
+    private final Map<String, List<Order>> orderHistory = new ConcurrentHashMap<>();
+    private final AtomicLong nextOrderId = new AtomicLong(260_000_000_000L);
+    private final AtomicLong calls = new AtomicLong();
+    private final AtomicLong injectedErrors = new AtomicLong();
+    private final AtomicLong rateLimited = new AtomicLong();
+
+    private volatile long minLatencyMs;
+    private volatile long maxLatencyMs;
+    private volatile double errorRate;
+    private volatile TokenBucket rateLimit;
+    private volatile long fillDelayMs = 50;
+    private volatile TickSource.OrderListener orderFeed;
+
+    private FakeKiteConnect(List<Holding> holdings, Map<String, List<Position>> positions, List<Order> orders) {
+        super("fake-api-key");
+        this.holdings = holdings;
+        this.positions = positions;
+        this.orders = orders;
+    }
+
+    /** A portfolio of {@code rows} holdings, net positions, day positions and orders. */
+    static FakeKiteConnect withPortfolio(int rows, long seed) {
+        Random random = new Random(seed);
+        List<Holding> holdings = new ArrayList<>(rows);
+        List<Position> net = new ArrayList<>(rows);
+        List<Position> day = new ArrayList<>(rows);
+        List<Order> orders = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            String token = String.valueOf(100_000 + i);
+            String symbol = "SYM" + i;
+            double averagePrice = 50 + random.nextInt(500_000) / 100.0;
+            double lastPrice = averagePrice * (0.9 + random.nextDouble() * 0.2);
+
+            Holding holding = new Holding();
+            holding.tradingSymbol = symbol;
+            holding.instrumentToken = token;
+            holding.exchange = "NSE";
+            holding.quantity = 1 + random.nextInt(500);
+            holding.averagePrice = averagePrice;
+            holding.lastPrice = lastPrice;
+            holding.pnl = holding.quantity * (lastPrice - averagePrice);
+            holding.dayChange = lastPrice * (random.nextDouble() - 0.5) * 0.04;
+            holding.dayChangePercentage = holding.dayChange / lastPrice * 100;
+            holdings.add(holding);
+
+            net.add(position(symbol, token, random.nextInt(200) - 100, averagePrice, lastPrice));
+            day.add(position(symbol, token, random.nextInt(200) - 100, averagePrice, lastPrice));
+
+            Order order = new Order();
+            order.orderId = String.valueOf(250_000_000_000L + i);
+            order.tradingSymbol = "SYM" + random.nextInt(Math.max(1, rows / 4));
+            order.instrumentToken = token;
+            order.status = i % 10 == 0 ? "REJECTED" : "COMPLETE";
+            order.transactionType = i % 2 == 0 ? "BUY" : "SELL";
+            order.quantity = String.valueOf(1 + random.nextInt(100));
+            order.filledQuantity = order.status.equals("COMPLETE") ? order.quantity : "0";
+            order.price = String.format("%.2f", averagePrice);
+            order.averagePrice = order.status.equals("COMPLETE") ? order.price : "0";
+            orders.add(order);
+        }
+        Map<String, List<Position>> positions = new HashMap<>();
+        positions.put("net", net);
+        positions.put("day", day);
+        return new FakeKiteConnect(holdings, positions, orders);
+    }
+
+    private static Position position(String symbol, String token, int netQuantity, double averagePrice,
+                                     double lastPrice) {
+        Position position = new Position();
+        position.tradingSymbol = symbol;
+        position.instrumentToken = token;
+        position.netQuantity = netQuantity == 0 ? 1 : netQuantity;
+        position.averagePrice = averagePrice;
+        position.lastPrice = lastPrice;
+        position.pnl = position.netQuantity * (lastPrice - averagePrice);
+        position.unrealised = position.pnl;
+        position.realised = 0.0;
+        position.product = "MIS";
+        position.multiplier = 1;
+        return position;
+    }
+
+    /** Each upstream call takes between {@code minMs} and {@code maxMs}. */
+    FakeKiteConnect withLatency(long minMs, long maxMs) {
+        this.minLatencyMs = minMs;
+        this.maxLatencyMs = Math.max(minMs, maxMs);
+        return this;
+    }
+
+    /** Share of upstream calls, 0 to 1, that fail with a server error. */
+    FakeKiteConnect withErrorRate(double rate) {
+        this.errorRate = rate;
+        return this;
+    }
+
+    /** Calls beyond {@code perSecond} fail with HTTP 429, as Kite answers. */
+    FakeKiteConnect withRateLimit(double perSecond) {
+        this.rateLimit = perSecond > 0 ? new TokenBucket(perSecond, (int) Math.max(1, perSecond)) : null;
+        return this;
+    }
+
+    /** Time from placing an order to its fill. */
+    FakeKiteConnect withFillDelay(long ms) {
+        this.fillDelayMs = ms;
+        return this;
+    }
+
+    /** Receives the updates of placed orders, like the ticker's order update messages. */
+    void setOrderFeed(TickSource.OrderListener feed) {
+        this.orderFeed = feed;
+    }
+
+    /** Simulates the round trip to Kite: rate limit, latency, then possibly a failure. */
+    private void upstream() throws KiteException {
+        calls.incrementAndGet();
+        TokenBucket bucket = rateLimit;
+        try {
+            if (bucket != null && !bucket.acquire(0)) {
+                rateLimited.incrementAndGet();
+                throw new NetworkException("Too many requests", 429);
+            }
+            long latency = maxLatencyMs > minLatencyMs
+                ? ThreadLocalRandom.current().nextLong(minLatencyMs, maxLatencyMs + 1) : minLatencyMs;
+            if (latency > 0) {
+                Thread.sleep(latency);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new NetworkException("Interrupted", 503);
+        }
+        if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {
+            injectedErrors.incrementAndGet();
+            throw new NetworkException("Injected upstream failure", 503);
+        }
+    }
+
+    @Override
+    public String getAccessToken() {
+        return ACCESS_TOKEN;
+    }
+
+    @Override
+    public String getLoginURL() {
+        return "https://kite.zerodha.com/connect/login?v=3&api_key=fake-api-key";
+    }
+
+    // Logging in is not subject to injected failures, so that a load test can always start
+    @Override
+    public User generateSession(String requestToken, String apiSecret) {
+        User user = new User();
+        user.userId = "FAKE01";
+        user.accessToken = ACCESS_TOKEN;
+        user.publicToken = "fake-public-token";
+        return user;
+    }
+
+    @Override
+    public List<Holding> getHoldings() throws KiteException {
+        upstream();
+        return holdings;
+    }
+
+    @Override
+    public Map<String, List<Position>> getPositions() throws KiteException {
+        upstream();
+        return positions;
+    }
+
+    @Override
+    public List<Order> getOrders() throws KiteException {
+        upstream();
+        return orders;
+    }
+
+    @Override
+    public Margin getMargins(String segment) throws KiteException {
+        upstream();
+        Margin margin = new Margin();
+        margin.net = "97500.00";
+        margin.available = margin.new Available();
+        margin.available.cash = "100000.00";
+        margin.utilised = margin.new Utilised();
+        margin.utilised.debits = "2500.00";
+        return margin;
+    }
+
+    /** Every holding as an NSE equity with lot size 1 and tick size 0.05, plus the benchmark index. */
+    @Override
+    public List<Instrument> getInstruments() throws KiteException {
+        upstream();
+        List<Instrument> instruments = new ArrayList<>(holdings.size() + 1);
+        for (Holding holding : holdings) {
+            instruments.add(instrument(Long.parseLong(holding.instrumentToken), holding.tradingSymbol, "NSE", "EQ"));
+        }
+        instruments.add(instrument(BENCHMARK_TOKEN, "NIFTY 50", "INDICES", "EQ"));
+        return instruments;
+    }
+
+    private static Instrument instrument(long token, String symbol, String segment, String type) {
+        Instrument instrument = new Instrument();
+        instrument.instrument_token = token;
+        instrument.tradingsymbol = symbol;
+        instrument.exchange = "NSE";
+        instrument.segment = segment;
+        instrument.instrument_type = type;
+        instrument.lot_size = 1;
+        instrument.tick_size = 0.05;
+        return instrument;
+    }
+
+    /** Weekday candles following a random walk seeded by the token, so repeated reads agree. */
+    @Override
+    public HistoricalData getHistoricalData(Date from, Date to, String token, String interval, boolean continuous,
+                                            boolean oi) throws KiteException {
+        upstream();
+        ZoneId zone = ZoneId.systemDefault();
+        LocalDate first = from.toInstant().atZone(zone).toLocalDate();
+        LocalDate last = to.toInstant().atZone(zone).toLocalDate();
+        HistoricalData data = new HistoricalData();
+        for (LocalDate day = first; !day.isAfter(last); day = day.plusDays(1)) {
+            if (day.getDayOfWeek() == DayOfWeek.SATURDAY || day.getDayOfWeek() == DayOfWeek.SUNDAY) {
+                continue;
+            }
+            Random random = new Random(token.hashCode() * 31L + day.toEpochDay());
+            double close = 100 + (token.hashCode() & 0xff) + 20 * Math.sin(day.toEpochDay() / 30.0)
+                + random.nextGaussian() * 2;
+            HistoricalData candle = new HistoricalData();
+            candle.timeStamp = day + "T00:00:00+0530";
+            candle.open = close;
+            candle.high = close;
+            candle.low = close;
+            candle.close = close;
+            candle.volume = 1000;
+            data.dataArrayList.add(candle);
+        }
+        return data;
+    }
+
+    /**
+     * Accepts the order as OPEN and fills it completely at its price after the fill delay,
+     * pushing both updates to the order feed.
+     */
+    @Override
+    public Order placeOrder(OrderParams params, String variety) throws KiteException {
+        upstream();
+        String orderId = String.valueOf(nextOrderId.incrementAndGet());
+        Order open = order(orderId, params, "OPEN", "0", "0");
+        List<Order> history = new CopyOnWriteArrayList<>();
+        history.add(open);
+        orderHistory.put(orderId, history);
+        push(open);
+        FILLS.schedule(() -> {
+            Order complete = order(orderId, params, "COMPLETE", String.valueOf(params.quantity),
+                String.valueOf(params.price));
+            history.add(complete);
+            push(complete);
+        }, fillDelayMs, TimeUnit.MILLISECONDS);
+
+        Order placed = new Order();
+        placed.orderId = orderId;
+        return placed;
+    }
+
+    private static Order order(String orderId, OrderParams params, String status, String filledQuantity,
+                               String averagePrice) {
+        Order order = new Order();
+        order.orderId = orderId;
+        order.tradingSymbol = params.tradingsymbol;
+        order.exchange = params.exchange;
+        order.transactionType = params.transactionType;
+        order.product = params.product;
+        order.quantity = String.valueOf(params.quantity);
+        order.price = String.valueOf(params.price);
+        order.status = status;
+        order.filledQuantity = filledQuantity;
+        order.pendingQuantity = String.valueOf(params.quantity - Integer.parseInt(filledQuantity));
+        order.averagePrice = averagePrice;
+        return order;
+    }
+
+    private void push(Order order) {
+        TickSource.OrderListener feed = orderFeed;
+        if (feed != null) {
+            feed.onOrderUpdate(order);
+        }
+    }
+
+    @Override
+    public List<Order> getOrderHistory(String orderId) throws KiteException {
+        upstream();
+        List<Order> history = orderHistory.get(orderId);
+        if (history == null) {
+            throw new InputException("Couldn't find that order", 400);
+        }
+        return new ArrayList<>(history);
+    }
+
+    Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("calls", calls.get());
+        stats.put("injected_errors", injectedErrors.get());
+        stats.put("rate_limited", rateLimited.get());
+        return stats;
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.demo;
+
+import com.zerodhatech.models.Order;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * In-memory {@link TickSource} for tests: ticks are pushed with {@link #emit} and order
+ * updates with {@link #emitOrder}, from any thread.
+ */
+class FakeTickSource implements TickSource {
+    private volatile TickListener listener;
+    private volatile OrderListener orderListener;
+    private final Set<Long> subscribed = new HashSet<>();
+    private volatile boolean connected;
+
+    @Override
+    public void setOrderListener(OrderListener listener) {
+        this.orderListener = listener;
+    }
+
+    @Override
+    public void start(TickListener listener) {
+        this.listener = listener;
+        this.connected = true;
+    }
+
+    @Override
+    public synchronized void subscribe(long[] instrumentTokens) {
+        subscribed.clear();
+        for (long token : instrumentTokens) {
+            subscribed.add(token);
+        }
+    }
+
+    synchronized Set<Long> subscribed() {
+        return new HashSet<>(subscribed);
+    }
+
+    /** Delivers a tick if the token is subscribed, like the real ticker. */
+    void emit(long instrumentToken, double lastPrice) {
+        boolean wanted;
+        synchronized (this) {
+            wanted = subscribed.contains(instrumentToken);
+        }
+        if (connected && wanted) {
+            listener.onTick(instrumentToken, lastPrice);
+        }
+    }
+
+    /** Delivers an order update to the order listener, if one is set. */
+    void emitOrder(Order order) {
+        if (connected && orderListener != null) {
+            orderListener.onOrderUpdate(order);
+        }
+    }
+
+    @Override
+    public boolean isConnected() {
+        return connected;
+    }
+
+    @Override
+    public void stop() {
+        connected = false;
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.demo;
+
+import com.zerodhatech.models.Instrument;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class InstrumentIndexTest {
+
+    @TempDir
+    Path dir;
+
+    private static Instrument instrument(long token, String exchange, String symbol, int lotSize, double tickSize) {
+        Instrument instrument = new Instrument();
+        instrument.instrument_token = token;
+        instrument.exchange = exchange;
+        instrument.segment = exchange;
+        instrument.instrument_type = "EQ";
+        instrument.tradingsymbol = symbol;
+        instrument.lot_size = lotSize;
+        instrument.tick_size = tickSize;
+        return instrument;
+    }
+
+    private static InstrumentIndex sampleIndex() {
+        List<Instrument> instruments = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            instruments.add(instrument(100_000 + i, i % 2 == 0 ? "NSE" : "BSE", "SYM" + i, 1, 0.05));
+        }
+        instruments.add(instrument(738561, "NSE", "RELIANCE", 1, 0.1));
+        instruments.add(instrument(128083204, "BSE", "RELIANCE", 1, 0.05));
+        return InstrumentIndex.build(instruments, 19_800);
+    }
+
+    @Test
+    void looksUpByTokenAndBySymbolPerExchange() {
+        InstrumentIndex index = sampleIndex();
+
+        int nse = index.rowOf("NSE", "RELIANCE");
+        int bse = index.rowOf("BSE", "RELIANCE");
+        assertEquals(738561L, index.token(nse));
+        assertEquals(128083204L, index.token(bse));
+        assertEquals(0.1, index.tickSize(nse), 0.0);
+        assertEquals(nse, index.rowOf(738561L));
+        assertEquals("SYM4321", index.tradingSymbol(index.rowOf(104_321L)));
+        assertEquals("BSE", index.exchange(index.rowOf(104_321L)));
+
+        assertEquals(-1, index.rowOf("NSE", "NOSUCH"));
+        assertEquals(-1, index.rowOf("MCX", "RELIANCE"));
+        assertEquals(-1, index.rowOf(42L));
+    }
+
+    @Test
+    void roundTripsThroughSnapshot() throws Exception {
+        InstrumentIndex index = sampleIndex();
+        Path file = dir.resolve("instruments.bin");
+
+        index.writeTo(file);
+        InstrumentIndex loaded = InstrumentIndex.readFrom(file);
+
+        assertEquals(index.size(), loaded.size());
+        assertEquals(19_800, loaded.getBuiltOn());
+        int row = loaded.rowOf("BSE", "RELIANCE");
+        assertEquals(128083204L, loaded.token(row));
+        assertEquals("EQ", loaded.instrumentType(row));
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.demo;
+
+import com.zerodhatech.kiteconnect.KiteConnect;
+import com.zerodhatech.models.HistoricalData;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.text.SimpleDateFormat;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class KiteClientTest {
+
+    @Test
+    void candleBoundsAreSentAsMarketDatesWhateverTheHostZone() throws Throwable {
+        TimeZone hostZone = TimeZone.getDefault();
+        TimeZone.setDefault(TimeZone.getTimeZone("America/New_York"));
+        try {
+            List<String> bounds = new ArrayList<>();
+            KiteConnect kite = new KiteConnect("api-key") {
+                @Override
+                public HistoricalData getHistoricalData(Date from, Date to, String token, String interval,
+                                                        boolean continuous, boolean oi) {
+                    // KiteConnect formats the bounds like this, in the JVM's zone
+                    SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+                    bounds.add(format.format(from));
+                    bounds.add(format.format(to));
+                    return new HistoricalData();
+                }
+            };
+            Map<KiteEndpoint, TokenBucket> buckets = new EnumMap<>(KiteEndpoint.class);
+            for (KiteEndpoint endpoint : KiteEndpoint.values()) {
+                buckets.put(endpoint, new TokenBucket(10, 1));
+            }
+            KiteClient client = new KiteClient(kite, new KiteRateLimiter(buckets, 1000),
+                new ServerMetrics(new SimpleMeterRegistry(), ""));
+
+            client.getDailyCandles("256265", LocalDate.of(2024, 3, 1), LocalDate.of(2024, 3, 8));
+            assertEquals(List.of("2024-03-01 00:00:00", "2024-03-08 23:59:59"), bounds);
+        } finally {
+            TimeZone.setDefault(hostZone);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.demo;
+
+import com.zerodhatech.kiteconnect.KiteConnect;
+import com.zerodhatech.models.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class KiteSessionsTest {
+
+    private final ServerMetrics metrics = new ServerMetrics(new SimpleMeterRegistry(), "");
+    private final KiteSessions sessions = new KiteSessions(metrics);
+
+    @Test
+    void theOnlyAccountIsUsedWithoutAnAccountId() throws Exception {
+        assertEquals("SESSION_EXPIRED", assertThrows(AccountSelectionException.class,
+            () -> sessions.resolve(null)).getErrorCode());
+
+        KiteSession session = login("AB1234");
+        assertSame(session, sessions.resolve(null));
+        assertSame(session, sessions.resolve("AB1234"));
+        assertEquals("UNKNOWN_ACCOUNT", assertThrows(AccountSelectionException.class,
+            () -> sessions.resolve("ZZ9999")).getErrorCode());
+    }
+
+    @Test
+    void severalAccountsNeedAnAccountIdAndKeepTheirOwnState() throws Exception {
+        KiteSession first = login("AB1234");
+        KiteSession second = login("CD5678");
+
+        assertEquals("ACCOUNT_REQUIRED", assertThrows(AccountSelectionException.class,
+            () -> sessions.resolve(null)).getErrorCode());
+        assertSame(second, sessions.resolve("CD5678"));
+        assertNotSame(first.portfolioCache(), second.portfolioCache());
+        assertNotSame(first.orderBook(), second.orderBook());
+        assertEquals(List.of("AB1234", "CD5678"), sessions.accountIds());
+        assertTrue(metrics.snapshot().containsKey("kite.cache.size{account=CD5678,cache=holdings}"));
+    }
+
+    @Test
+    void expiredOrReplacedSessionsAreDropped() throws Exception {
+        KiteSession first = login("AB1234");
+        KiteSession again = login("AB1234");
+        assertSame(again, sessions.resolve("AB1234"));
+
+        // The expiry hook of the replaced session must not drop its successor
+        sessions.remove(first);
+        assertSame(again, sessions.resolve(null));
+
+        again.expire();
+        sessions.remove(again);
+        assertEquals("SESSION_EXPIRED", assertThrows(AccountSelectionException.class,
+            () -> sessions.resolve(null)).getErrorCode());
+        assertFalse(metrics.snapshot().keySet().stream().anyMatch(key -> key.contains("account=AB1234")));
+    }
+
+    private KiteSession login(String accountId) {
+        Map<KiteEndpoint, TokenBucket> buckets = new EnumMap<>(KiteEndpoint.class);
+        for (KiteEndpoint endpoint : KiteEndpoint.values()) {
+            buckets.put(endpoint, new TokenBucket(10, 1));
+        }
+        KiteRateLimiter rateLimiter = new KiteRateLimiter(buckets, 1000);
+        KiteSession session = new KiteSession(new KiteClient(new KiteConnect("api-key"), rateLimiter, metrics),
+            rateLimiter, new PortfolioCache(1000, 1000, 1000, 16), new OrderTracker(1000, 60_000));
+        User user = new User();
+        user.userId = accountId;
+        user.accessToken = "token-" + accountId;
+        user.publicToken = "public-" + accountId;
+        session.activate(user);
+        sessions.register(session);
+        return session;
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.demo;
+
+import com.zerodhatech.models.Order;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OrderBookTest {
+
+    private static Order order(String id, String symbol, String status, String quantity, String price,
+                               String filledQuantity, String averagePrice) {
+        Order order = new Order();
+        order.orderId = id;
+        order.tradingSymbol = symbol;
+        order.status = status;
+        order.quantity = quantity;
+        order.price = price;
+        order.filledQuantity = filledQuantity;
+        order.averagePrice = averagePrice;
+        return order;
+    }
+
+    @Test
+    void aggregatesPerSymbolAndOverall() {
+        OrderBook book = new OrderBook();
+        book.sync(List.of(
+            order("1", "INFY", "COMPLETE", "10", "1500", "10", "1490"),
+            order("2", "INFY", "OPEN", "10", "1400", "0", "0"),
+            order("3", "TCS", "REJECTED", "5", "3000", "0", "0")));
+
+        Map<String, Object> analysis = book.analysis();
+        assertEquals(3, analysis.get("total_orders"));
+        assertEquals(Map.of("INFY", 2, "TCS", 1), analysis.get("symbol_order_count"));
+        assertEquals(Map.of("INFY", 29000.0, "TCS", 15000.0), analysis.get("symbol_total_value"));
+        assertEquals(1.0 / 3, (Double) analysis.get("rejection_rate"), 1e-9);
+        assertEquals(10.0 / 25, (Double) analysis.get("fill_ratio"), 1e-9);
+
+        Map<?, ?> infy = (Map<?, ?>) ((Map<?, ?>) analysis.get("symbols")).get("INFY");
+        assertEquals(0.5, (Double) infy.get("fill_ratio"), 1e-9);
+        assertEquals(1490.0, (Double) infy.get("average_fill_price"), 1e-9);
+    }
+
+    @Test
+    void changedOrdersReplaceTheirContributionAndMissingOrdersAreDropped() {
+        OrderBook book = new OrderBook();
+        book.sync(List.of(
+            order("1", "INFY", "OPEN", "10", "1500", "0", "0"),
+            order("2", "TCS", "OPEN", "5", "3000", "0", "0")));
+
+        book.onOrderUpdate(order("1", "INFY", "COMPLETE", "10", "1500", "10", "1495"));
+        Map<?, ?> infy = (Map<?, ?>) ((Map<?, ?>) book.analysis().get("symbols")).get("INFY");
+        assertEquals(1, infy.get("orders"));
+        assertEquals(1.0, (Double) infy.get("fill_ratio"), 1e-9);
+        assertEquals(1495.0, (Double) infy.get("average_fill_price"), 1e-9);
+
+        book.sync(List.of(order("1", "INFY", "COMPLETE", "10", "1500", "10", "1495")));
+        Map<String, Object> analysis = book.analysis();
+        assertEquals(1, analysis.get("total_orders"));
+        assertFalse(((Map<?, ?>) analysis.get("symbols")).containsKey("TCS"));
+        assertEquals(15000.0, (Double) analysis.get("notional"), 1e-9);
+
+        Map<String, Object> stats = book.stats();
+        assertEquals(3L, stats.get("applied_updates"));
+        assertEquals(1L, stats.get("unchanged_updates"));
+    }
+
+    @Test
+    void syncAgeControlsWhetherUpdatesAloneAreTrusted() {
+        OrderBook book = new OrderBook();
+        assertFalse(book.syncedWithin(60_000));
+        book.sync(List.of());
+        assertTrue(book.syncedWithin(60_000));
+    }
+}
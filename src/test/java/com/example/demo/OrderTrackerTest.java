@@ -0,0 +1,116 @@
+package com.example.demo;
+
+import com.zerodhatech.models.Order;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OrderTrackerTest {
+
+    private static Order order(String id, String status, String filledQuantity) {
+        Order order = new Order();
+        order.orderId = id;
+        order.status = status;
+        order.filledQuantity = filledQuantity;
+        return order;
+    }
+
+    @Test
+    void pushedFinalUpdateReleasesTheWaiterWithoutPolling() throws Throwable {
+        OrderTracker tracker = new OrderTracker(50, 60_000);
+        AtomicInteger polls = new AtomicInteger();
+        tracker.onOrderUpdate(order("1", "OPEN", "0"));
+
+        CompletableFuture<OrderTracker.Result> waiting = CompletableFuture.supplyAsync(() -> {
+            try {
+                return tracker.await("1", 10_000, () -> true, id -> () -> {
+                    polls.incrementAndGet();
+                    return List.of();
+                });
+            } catch (Throwable e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        Thread.sleep(50);
+        tracker.onOrderUpdate(order("1", "COMPLETE", "10"));
+
+        OrderTracker.Result result = waiting.get(5, TimeUnit.SECONDS);
+        assertTrue(result.done());
+        assertEquals("10", result.order().filledQuantity);
+        assertEquals("stream", result.source());
+        assertEquals(0, polls.get());
+    }
+
+    @Test
+    void pollsOrderHistoryWhileTheTickerIsDown() throws Throwable {
+        OrderTracker tracker = new OrderTracker(10, 60_000);
+        AtomicInteger polls = new AtomicInteger();
+
+        OrderTracker.Result result = tracker.await("2", 5_000, () -> false, id -> () -> polls.incrementAndGet() < 3
+            ? List.of(order(id, "OPEN", "0"))
+            : List.of(order(id, "OPEN", "0"), order(id, "REJECTED", "0")));
+
+        assertTrue(result.done());
+        assertEquals("REJECTED", result.order().status);
+        assertEquals("rest", result.source());
+        assertEquals(3, polls.get());
+    }
+
+    @Test
+    void timesOutWithTheLatestStateAndKeepsFinalStates() throws Throwable {
+        OrderTracker tracker = new OrderTracker(10, 60_000);
+        tracker.onOrderUpdate(order("3", "OPEN", "0"));
+
+        OrderTracker.Result result = tracker.await("3", 20, () -> true, id -> () -> List.of(order(id, "OPEN", "5")));
+        assertFalse(result.done());
+        assertEquals("5", result.order().filledQuantity);
+
+        tracker.onOrderUpdate(order("3", "CANCELLED", "5"));
+        tracker.onOrderUpdate(order("3", "OPEN", "5"));
+        assertEquals("CANCELLED", tracker.await("3", 0, () -> true, id -> List::of).order().status);
+    }
+
+    @Test
+    void fallsBackToPollingWhenTheTickerDropsDuringTheWait() throws Throwable {
+        OrderTracker tracker = new OrderTracker(10, 60_000);
+        AtomicBoolean live = new AtomicBoolean(true);
+        tracker.onOrderUpdate(order("4", "OPEN", "0"));
+
+        CompletableFuture<OrderTracker.Result> waiting = CompletableFuture.supplyAsync(() -> {
+            try {
+                return tracker.await("4", 10_000, live::get, id -> () -> List.of(order(id, "COMPLETE", "10")));
+            } catch (Throwable e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        Thread.sleep(50);
+        live.set(false);
+
+        OrderTracker.Result result = waiting.get(5, TimeUnit.SECONDS);
+        assertTrue(result.done());
+        assertEquals("rest", result.source());
+    }
+
+    @Test
+    void unknownOrdersAreNotTrackedAndFinalOrdersAreEvicted() throws Throwable {
+        OrderTracker tracker = new OrderTracker(10, 1);
+        assertNull(tracker.await("missing", 1_000, () -> true, id -> List::of).order());
+        assertEquals(0, tracker.stats().get("tracked_orders"));
+
+        tracker.onOrderUpdate(order("5", "COMPLETE", "10"));
+        tracker.onOrderUpdate(order("6", "OPEN", "0"));
+        Thread.sleep(5);
+        tracker.onOrderUpdate(order("6", "OPEN", "0"));
+        assertEquals(1, tracker.stats().get("tracked_orders"));
+        assertEquals(1L, tracker.stats().get("evicted_orders"));
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.demo;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link RiskEngine} on synthetic one-factor daily prices: every instrument follows the
+ * benchmark with its own beta plus idiosyncratic noise. {@code days} of 750 and 1500 are
+ * roughly three and six years of trading days.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RiskEngineBenchmark {
+
+    @Param({"50", "200", "500"})
+    public int holdings;
+
+    @Param({"250", "750", "1500"})
+    public int days;
+
+    private final RiskEngine parallel = new RiskEngine(ForkJoinPool.commonPool());
+    private final RiskEngine sequential = new RiskEngine(new ForkJoinPool(1));
+    private List<CandleSeries> series;
+    private double[][] returns;
+    private double[] benchmark;
+    private double[] values;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        double[] market = new double[days];
+        for (int t = 0; t < days; t++) {
+            market[t] = random.nextGaussian() * 0.01;
+        }
+        series = new ArrayList<>(holdings + 1);
+        for (int i = 0; i <= holdings; i++) {
+            double beta = i == holdings ? 1 : 0.5 + random.nextDouble();
+            double noise = i == holdings ? 0 : 0.005 + random.nextDouble() * 0.02;
+            int[] epochDays = new int[days + 1];
+            double[] close = new double[days + 1];
+            epochDays[0] = 18_000;
+            close[0] = 100 + random.nextInt(2000);
+            for (int t = 1; t <= days; t++) {
+                epochDays[t] = epochDays[t - 1] + (t % 5 == 0 ? 3 : 1);
+                close[t] = close[t - 1] * (1 + beta * market[t - 1] + noise * random.nextGaussian());
+            }
+            series.add(new CandleSeries(epochDays, close, close, close, close, new long[days + 1]));
+        }
+        double[][] aligned = RiskEngine.alignedReturns(series);
+        returns = Arrays.copyOf(aligned, holdings);
+        benchmark = aligned[holdings];
+        values = new double[holdings];
+        for (int i = 0; i < holdings; i++) {
+            values[i] = 10_000 + random.nextInt(1_000_000);
+        }
+    }
+
+    @Benchmark
+    public double[][] alignReturns() {
+        return RiskEngine.alignedReturns(series);
+    }
+
+    @Benchmark
+    public RiskEngine.Result analyseParallel() {
+        return parallel.analyse(returns, values, benchmark, 0.95);
+    }
+
+    @Benchmark
+    public RiskEngine.Result analyseSingleThread() {
+        return sequential.analyse(returns, values, benchmark, 0.95);
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.demo;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RiskEngineTest {
+
+    private final RiskEngine engine = new RiskEngine(ForkJoinPool.commonPool());
+
+    private static CandleSeries closes(int[] days, double... close) {
+        return new CandleSeries(days, close.clone(), close.clone(), close.clone(), close.clone(),
+            new long[days.length]);
+    }
+
+    @Test
+    void alignsSeriesOnTheUnionOfTradingDays() {
+        CandleSeries a = closes(new int[] {1, 2, 3, 4}, 100, 110, 121, 121);
+        // No candle on day 3, and no history before day 2
+        CandleSeries b = closes(new int[] {2, 4}, 50, 60);
+
+        double[][] returns = RiskEngine.alignedReturns(List.of(a, b));
+
+        assertArrayEquals(new double[] {0.1, 0.1, 0.0}, returns[0], 1e-12);
+        assertArrayEquals(new double[] {0.0, 0.0, 0.2}, returns[1], 1e-12);
+    }
+
+    @Test
+    void historicalVarAndCvarComeFromTheLossTail() {
+        double[] daily = new double[100];
+        for (int t = 0; t < daily.length; t++) {
+            daily[t] = (t - 50) / 1000.0;
+        }
+        RiskEngine.Result result = engine.analyse(new double[][] {daily}, new double[] {1000}, null, 0.95);
+
+        // Worst returns are -0.050 .. -0.046; the 95% quantile is the sixth worst
+        assertEquals(0.045, result.valueAtRisk(), 1e-12);
+        assertEquals(0.0475, result.conditionalValueAtRisk(), 1e-12);
+        assertTrue(Double.isNaN(result.beta()));
+    }
+
+    @Test
+    void correlationBetaAndConcentration() {
+        int days = 500;
+        double[] market = new double[days];
+        double[] other = new double[days];
+        Random random = new Random(7);
+        for (int t = 0; t < days; t++) {
+            market[t] = random.nextGaussian() * 0.01;
+            other[t] = random.nextGaussian() * 0.01;
+        }
+        double[] leveraged = new double[days];
+        double[] inverse = new double[days];
+        for (int t = 0; t < days; t++) {
+            leveraged[t] = 2 * market[t];
+            inverse[t] = -market[t];
+        }
+        double[][] returns = new double[20][];
+        returns[0] = leveraged;
+        returns[1] = inverse;
+        for (int i = 2; i < returns.length; i++) {
+            returns[i] = other;
+        }
+        double[] values = new double[20];
+        Arrays.fill(values, 100);
+        values[0] = 1000;
+
+        RiskEngine.Result result = engine.analyse(returns, values, market, 0.99);
+
+        assertEquals(-1.0, result.correlation()[0][1], 1e-9);
+        assertEquals(1.0, result.correlation()[2][3], 1e-9);
+        assertEquals(result.correlation()[5][0], result.correlation()[0][5], 0);
+        assertEquals(2.0, result.betas()[0], 1e-9);
+        assertEquals(-1.0, result.betas()[1], 1e-9);
+        assertEquals(1000.0 / 2900, result.maxWeight(), 1e-12);
+        assertEquals(1400.0 / 2900, result.top5Weight(), 1e-12);
+
+        List<RiskEngine.Pair> pairs = RiskEngine.mostCorrelated(result.correlation(), 3);
+        assertEquals(3, pairs.size());
+        assertEquals(1.0, pairs.get(0).correlation(), 1e-9);
+    }
+
+    @Test
+    void rejectsTooLittleHistory() {
+        assertThrows(IllegalArgumentException.class,
+            () -> engine.analyse(new double[][] {{0.01}}, new double[] {1}, null, 0.95));
+    }
+}
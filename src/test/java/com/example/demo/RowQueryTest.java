@@ -0,0 +1,128 @@
+package com.example.demo;
+
+import com.example.demo.PortfolioRows.HoldingRow;
+import com.example.demo.PortfolioRows.NetPositionRow;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RowQueryTest {
+
+    private final RowVersions<HoldingRow> versions =
+        new RowVersions<>(new AtomicLong(), PortfolioRows.HOLDING_SCHEMA.key());
+
+    private static HoldingRow row(String symbol, double lastPrice) {
+        return new HoldingRow(symbol, 0, 0, 10, 100, lastPrice, 10 * (lastPrice - 100));
+    }
+
+    private Map<String, Object> apply(RowQuery query, List<HoldingRow> rows) {
+        return query.apply("holdings", rows, PortfolioRows.HOLDING_SCHEMA, versions);
+    }
+
+    private static RowQuery query(Integer offset, Integer limit, String fields, Double minAbsPnl, Long since) {
+        return RowQuery.of(offset, limit, fields, minAbsPnl, since, PortfolioRows.HOLDING_SCHEMA.fields().keySet());
+    }
+
+    @Test
+    void noOptionsReturnsEveryRow() {
+        List<HoldingRow> rows = List.of(row("A", 101), row("B", 102));
+        Map<String, Object> result = apply(query(null, null, null, null, null), rows);
+
+        assertEquals(rows, result.get("holdings"));
+        assertFalse(result.containsKey("holdings_matched"));
+        assertFalse(result.containsKey("delta"));
+    }
+
+    @Test
+    void filtersPagesAndProjects() {
+        List<HoldingRow> rows = List.of(row("A", 100.5), row("B", 110), row("C", 90), row("D", 120));
+        Map<String, Object> result = apply(query(1, 1, "trading_symbol, pnl", 50.0, null), rows);
+
+        assertEquals(List.of(Map.of("trading_symbol", "C", "pnl", -100.0)), result.get("holdings"));
+        assertEquals(3, result.get("holdings_matched"));
+        assertEquals(2, result.get("holdings_next_offset"));
+    }
+
+    @Test
+    void deltaReturnsOnlyChangedAndRemovedRows() {
+        Map<String, Object> first = apply(query(null, null, null, null, null),
+            List.of(row("A", 101), row("B", 102), row("C", 103)));
+        long version = (Long) first.get("version");
+
+        Map<String, Object> delta = apply(query(null, null, null, null, version),
+            List.of(row("A", 101), row("B", 105)));
+
+        assertEquals(List.of(row("B", 105)), delta.get("holdings"));
+        assertEquals(List.of("C"), delta.get("holdings_removed"));
+        assertEquals(true, delta.get("delta"));
+        assertTrue((Long) delta.get("version") > version);
+
+        Map<String, Object> unchanged = apply(query(null, null, null, null, (Long) delta.get("version")),
+            List.of(row("A", 101), row("B", 105)));
+        assertEquals(List.of(), unchanged.get("holdings"));
+        assertEquals(List.of(), unchanged.get("holdings_removed"));
+    }
+
+    @Test
+    void deltaOlderThanTheRememberedRemovalsReturnsEveryRow() {
+        RowVersions<HoldingRow> recent = new RowVersions<>(new AtomicLong(), PortfolioRows.HOLDING_SCHEMA.key(), 1);
+        Map<String, Object> first = query(null, null, null, null, null).apply("holdings",
+            List.of(row("A", 101), row("B", 102), row("C", 103)), PortfolioRows.HOLDING_SCHEMA, recent);
+
+        Map<String, Object> delta = query(null, null, null, null, (Long) first.get("version")).apply("holdings",
+            List.of(row("A", 101)), PortfolioRows.HOLDING_SCHEMA, recent);
+
+        assertEquals(false, delta.get("delta"));
+        assertEquals(List.of(row("A", 101)), delta.get("holdings"));
+        assertFalse(delta.containsKey("holdings_removed"));
+    }
+
+    @Test
+    void deltaFromBeforeARestartReturnsEveryRow() {
+        AtomicLong clock = new AtomicLong(1_000);
+        RowVersions<HoldingRow> beforeRestart = new RowVersions<>(clock, PortfolioRows.HOLDING_SCHEMA.key());
+        Map<String, Object> first = query(null, null, null, null, null).apply("holdings",
+            List.of(row("A", 101), row("B", 102)), PortfolioRows.HOLDING_SCHEMA, beforeRestart);
+
+        // B was sold while the server was down; the new instance never saw it
+        RowVersions<HoldingRow> afterRestart = new RowVersions<>(new AtomicLong(clock.get() + 1_000),
+            PortfolioRows.HOLDING_SCHEMA.key());
+        Map<String, Object> delta = query(null, null, null, null, (Long) first.get("version")).apply("holdings",
+            List.of(row("A", 101)), PortfolioRows.HOLDING_SCHEMA, afterRestart);
+
+        assertEquals(false, delta.get("delta"));
+        assertEquals(List.of(row("A", 101)), delta.get("holdings"));
+        assertFalse(delta.containsKey("holdings_removed"));
+    }
+
+    @Test
+    void sameSymbolOnTwoExchangesIsTwoPositions() {
+        RowVersions<NetPositionRow> positions =
+            new RowVersions<>(new AtomicLong(), PortfolioRows.NET_POSITION_SCHEMA.key());
+        List<NetPositionRow> rows = List.of(
+            new NetPositionRow("INFY", 10, 1500, 1510, 100, 100, 0, "CNC", "408065"),
+            new NetPositionRow("INFY", 5, 1502, 1509, 35, 35, 0, "CNC", "128053508"));
+        Map<String, Object> first = RowQuery.of(null, null, null, null, null,
+            PortfolioRows.NET_POSITION_SCHEMA.fields().keySet())
+            .apply("net", rows, PortfolioRows.NET_POSITION_SCHEMA, positions);
+
+        Map<String, Object> unchanged = RowQuery.of(null, null, null, null, (Long) first.get("version"),
+            PortfolioRows.NET_POSITION_SCHEMA.fields().keySet())
+            .apply("net", rows, PortfolioRows.NET_POSITION_SCHEMA, positions);
+        assertEquals(List.of(), unchanged.get("net"));
+    }
+
+    @Test
+    void rejectsUnknownFieldsAndBadPaging() {
+        assertThrows(IllegalArgumentException.class, () -> query(null, null, "trading_symbol,isin", null, null));
+        assertThrows(IllegalArgumentException.class, () -> query(-1, null, null, null, null));
+        assertThrows(IllegalArgumentException.class, () -> query(null, 0, null, null, null));
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.demo;
+
+import com.zerodhatech.kiteconnect.kitehttp.exceptions.NetworkException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.ai.tool.definition.ToolDefinition;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ServerMetricsTest {
+
+    private final ServerMetrics metrics = new ServerMetrics(new SimpleMeterRegistry(), "");
+
+    @Test
+    void toolCallsAreTimedAndFailuresCountedByErrorType() {
+        ToolCallback tool = new TimedToolCallback(fixedResult("place_orders", Map.of("status", "partial",
+            "results", List.of(Map.of("status", "success"),
+                Map.of("status", "failed", "error_type", "RATE_LIMITED"),
+                Map.of("status", "failed", "error_type", "RATE_LIMITED")))), metrics);
+        tool.call("{}");
+        tool.call("{}");
+
+        Map<String, Object> snapshot = metrics.snapshot();
+        Map<?, ?> timer = (Map<?, ?>) snapshot.get("mcp.tool.duration{tool=place_orders}");
+        assertEquals(2L, timer.get("count"));
+        assertTrue(timer.containsKey("p99_ms"));
+        assertEquals(4.0, snapshot.get("mcp.tool.errors{error_type=RATE_LIMITED,tool=place_orders}"));
+    }
+
+    @Test
+    void failureWithoutErrorTypeIsUnclassified() {
+        new TimedToolCallback(fixedResult("get_holdings", Map.of("error", "boom", "status", "failed")), metrics)
+            .call("{}");
+        new TimedToolCallback(fixedResult("get_margins", Map.of("status", "success")), metrics).call("{}");
+        // Only the top-level status counts, not that of nested objects
+        new TimedToolCallback(fixedResult("get_cache_stats", Map.of("status", "success",
+            "warm_state", Map.of("status", "failed", "error_type", "IO_ERROR"))), metrics).call("{}");
+
+        Map<String, Object> snapshot = metrics.snapshot();
+        assertEquals(1.0, snapshot.get("mcp.tool.errors{error_type=UNCLASSIFIED,tool=get_holdings}"));
+        assertFalse(snapshot.keySet().stream().anyMatch(key -> key.startsWith("mcp.tool.errors")
+            && (key.contains("tool=get_margins}") || key.contains("tool=get_cache_stats}"))));
+    }
+
+    @Test
+    void kiteCallFailuresAreCountedByException() throws Throwable {
+        assertEquals("ok", metrics.timeKiteCall("getHoldings", () -> "ok"));
+        assertThrows(NetworkException.class, () -> metrics.timeKiteCall("getHoldings", () -> {
+            throw new NetworkException("timeout", 503);
+        }));
+
+        Map<String, Object> snapshot = metrics.snapshot();
+        assertEquals(2L, ((Map<?, ?>) snapshot.get("kite.call.duration{method=getHoldings}")).get("count"));
+        assertEquals(1.0, snapshot.get("kite.call.errors{exception=NetworkException,method=getHoldings}"));
+    }
+
+    /** A tool returning {@code result}, converted the way Spring AI converts the service's tools. */
+    private static ToolCallback fixedResult(String name, Map<String, Object> result) {
+        ToolDefinition definition = new ToolDefinition() {
+            @Override
+            public String name() {
+                return name;
+            }
+
+            @Override
+            public String description() {
+                return name;
+            }
+
+            @Override
+            public String inputSchema() {
+                return "{}";
+            }
+        };
+        return new ToolCallback() {
+            @Override
+            public ToolDefinition getToolDefinition() {
+                return definition;
+            }
+
+            @Override
+            public String call(String toolInput) {
+                return new MeteredResultConverter().convert(result, Map.class);
+            }
+        };
+    }
+}
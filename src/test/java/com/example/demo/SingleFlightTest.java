@@ -0,0 +1,70 @@
+package com.example.demo;
+
+import com.zerodhatech.kiteconnect.kitehttp.exceptions.KiteException;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SingleFlightTest {
+
+    @Test
+    void concurrentCallersShareOneUpstreamCall() throws Throwable {
+        SingleFlight singleFlight = new SingleFlight();
+        AtomicInteger upstreamCalls = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<String> leader = CompletableFuture.supplyAsync(() -> {
+            try {
+                return singleFlight.execute("positions", () -> {
+                    upstreamCalls.incrementAndGet();
+                    started.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return "data";
+                });
+            } catch (Throwable t) {
+                throw new RuntimeException(t);
+            }
+        });
+        started.await(5, TimeUnit.SECONDS);
+
+        CompletableFuture<String> follower = CompletableFuture.supplyAsync(() -> {
+            try {
+                return singleFlight.execute("positions", () -> {
+                    upstreamCalls.incrementAndGet();
+                    return "other";
+                });
+            } catch (Throwable t) {
+                throw new RuntimeException(t);
+            }
+        });
+        while (singleFlight.getCoalesced() == 0) {
+            Thread.onSpinWait();
+        }
+        release.countDown();
+
+        assertEquals("data", leader.get(5, TimeUnit.SECONDS));
+        assertEquals("data", follower.get(5, TimeUnit.SECONDS));
+        assertEquals(1, upstreamCalls.get());
+    }
+
+    @Test
+    void failuresAreNotRemembered() throws Throwable {
+        SingleFlight singleFlight = new SingleFlight();
+
+        assertThrows(KiteException.class, () -> singleFlight.execute("orders", () -> {
+            throw new KiteException("Too many requests", 429);
+        }));
+        assertEquals("ok", singleFlight.execute("orders", () -> "ok"));
+    }
+}
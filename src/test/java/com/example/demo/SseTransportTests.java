@@ -0,0 +1,70 @@
+package com.example.demo;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIf;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.util.ClassUtils;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = "kite.warm-state.file=")
+@ActiveProfiles("sse")
+@EnabledIf(value = "webFluxPresent", disabledReason = "WebFlux is only on the classpath with -Psse")
+class SseTransportTests {
+
+    static boolean webFluxPresent() {
+        return ClassUtils.isPresent("org.springframework.web.reactive.DispatcherHandler", null);
+    }
+
+    @LocalServerPort
+    private int port;
+
+    @Test
+    void everyClientGetsItsOwnMessageEndpoint() throws Exception {
+        String first = messageEndpoint();
+        String second = messageEndpoint();
+        assertTrue(first.startsWith("/mcp/message?sessionId="), first);
+        assertTrue(second.startsWith("/mcp/message?sessionId="), second);
+        assertNotEquals(first, second);
+    }
+
+    /** Opens an SSE connection and returns the message endpoint the server announces first. */
+    private String messageEndpoint() throws Exception {
+        HttpClient client = HttpClient.newHttpClient();
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + port + "/sse"))
+            .header("Accept", "text/event-stream")
+            .timeout(Duration.ofSeconds(10))
+            .build();
+        HttpResponse<Stream<String>> response = client.send(request, HttpResponse.BodyHandlers.ofLines());
+        assertEquals(200, response.statusCode());
+        try (Stream<String> lines = response.body()) {
+            return CompletableFuture.supplyAsync(() -> {
+                Iterator<String> events = lines.iterator();
+                String event = null;
+                while (events.hasNext()) {
+                    String line = events.next();
+                    if (line.startsWith("event:")) {
+                        event = line.substring("event:".length()).strip();
+                    } else if (line.startsWith("data:") && "endpoint".equals(event)) {
+                        return line.substring("data:".length()).strip();
+                    }
+                }
+                throw new IllegalStateException("Stream ended before the endpoint event");
+            }).get(10, TimeUnit.SECONDS);
+        }
+    }
+}
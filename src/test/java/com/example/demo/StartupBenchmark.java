@@ -0,0 +1,141 @@
+package com.example.demo;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Launches the packaged server the way an MCP client does, as a stdio subprocess, and measures
+ * the time from process start to the {@code initialize} response and to the first
+ * {@code tools/list} response. The plain jar is always measured; the AOT/CDS launch from the
+ * {@code fast-start} profile is measured too when it has been built.
+ *
+ * <p>Usage: {@code StartupBenchmark <target dir> [runs] [max median ms]}. With a maximum, the
+ * process exits with status 1 when a median time to {@code tools/list} exceeds it, so a startup
+ * regression fails the build. Run with {@code ./mvnw -Pstartup-benchmark verify -DskipTests},
+ * adding {@code -Pfast-start} to include the fast-start launch.
+ */
+public class StartupBenchmark {
+    private static final long TIMEOUT_MS = 120_000;
+
+    private static final String INITIALIZE = "{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"initialize\",\"params\":"
+        + "{\"protocolVersion\":\"2024-11-05\",\"capabilities\":{},"
+        + "\"clientInfo\":{\"name\":\"startup-benchmark\",\"version\":\"1.0\"}}}";
+    private static final String INITIALIZED = "{\"jsonrpc\":\"2.0\",\"method\":\"notifications/initialized\"}";
+    private static final String TOOLS_LIST = "{\"jsonrpc\":\"2.0\",\"id\":2,\"method\":\"tools/list\",\"params\":{}}";
+
+    record Launch(String name, List<String> command) {
+    }
+
+    record Timing(long initializeMs, long toolsListMs) {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("Usage: StartupBenchmark <target dir> [runs] [max median ms]");
+            System.exit(2);
+        }
+        Path target = Path.of(args[0]);
+        int runs = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        long maxMedianMs = args.length > 2 && !args[2].isBlank() ? Long.parseLong(args[2]) : Long.MAX_VALUE;
+
+        boolean regressed = false;
+        for (Launch launch : launches(target)) {
+            // The first launch warms the OS file cache and is not counted
+            measure(launch);
+            long[] initialize = new long[runs];
+            long[] toolsList = new long[runs];
+            for (int i = 0; i < runs; i++) {
+                Timing timing = measure(launch);
+                initialize[i] = timing.initializeMs();
+                toolsList[i] = timing.toolsListMs();
+            }
+            Arrays.sort(initialize);
+            Arrays.sort(toolsList);
+            System.out.printf("%-10s initialize  min %5d  median %5d  max %5d ms%n", launch.name(),
+                initialize[0], initialize[runs / 2], initialize[runs - 1]);
+            System.out.printf("%-10s tools/list  min %5d  median %5d  max %5d ms%n", launch.name(),
+                toolsList[0], toolsList[runs / 2], toolsList[runs - 1]);
+            if (toolsList[runs / 2] > maxMedianMs) {
+                System.out.printf("%-10s median time to tools/list exceeds %d ms%n", launch.name(), maxMedianMs);
+                regressed = true;
+            }
+        }
+        System.exit(regressed ? 1 : 0);
+    }
+
+    private static List<Launch> launches(Path target) throws IOException {
+        String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+        List<Launch> launches = new ArrayList<>();
+        try (var files = Files.list(target)) {
+            Path jar = files.filter(file -> file.toString().endsWith(".jar"))
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("No jar in " + target + ", run package first"));
+            launches.add(new Launch("default", List.of(java, "-jar", jar.toString())));
+
+            Path fastStart = target.resolve("fast-start");
+            Path archive = fastStart.resolve("application.jsa");
+            Path fastJar = fastStart.resolve(jar.getFileName());
+            if (Files.exists(archive) && Files.exists(fastJar)) {
+                launches.add(new Launch("fast-start", List.of(java, "-XX:SharedArchiveFile=" + archive,
+                    "-Dspring.aot.enabled=true", "-jar", fastJar.toString())));
+            }
+        }
+        return launches;
+    }
+
+    private static Timing measure(Launch launch) throws Exception {
+        ProcessBuilder builder = new ProcessBuilder(launch.command());
+        builder.redirectError(ProcessBuilder.Redirect.DISCARD);
+        long start = System.nanoTime();
+        Process process = builder.start();
+        try {
+            OutputStream stdin = process.getOutputStream();
+            BufferedReader stdout = new BufferedReader(
+                new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+            send(stdin, INITIALIZE);
+            long initializeMs = awaitResponse(stdout, 1, start);
+            send(stdin, INITIALIZED);
+            send(stdin, TOOLS_LIST);
+            long toolsListMs = awaitResponse(stdout, 2, start);
+            return new Timing(initializeMs, toolsListMs);
+        } finally {
+            process.destroy();
+            if (!process.waitFor(10, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+        }
+    }
+
+    private static void send(OutputStream stdin, String message) throws IOException {
+        stdin.write((message + "\n").getBytes(StandardCharsets.UTF_8));
+        stdin.flush();
+    }
+
+    /** Reads stdout lines until the JSON-RPC response with the given id, returning ms since start. */
+    private static long awaitResponse(BufferedReader stdout, int id, long start) throws Exception {
+        CompletableFuture<Long> response = CompletableFuture.supplyAsync(() -> {
+            try {
+                String line;
+                while ((line = stdout.readLine()) != null) {
+                    if (line.contains("\"id\":" + id + ",") || line.contains("\"id\":" + id + "}")) {
+                        return (System.nanoTime() - start) / 1_000_000;
+                    }
+                }
+                throw new IllegalStateException("Server exited before responding to request " + id);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        return response.get(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+    }
+}
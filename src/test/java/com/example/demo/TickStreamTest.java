@@ -0,0 +1,101 @@
+package com.example.demo;
+
+import com.zerodhatech.models.Holding;
+import com.zerodhatech.models.Position;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TickStreamTest {
+
+    private static Holding holding(String token, int quantity, double averagePrice, double lastPrice) {
+        Holding holding = new Holding();
+        holding.instrumentToken = token;
+        holding.tradingSymbol = "SYM" + token;
+        holding.quantity = quantity;
+        holding.averagePrice = averagePrice;
+        holding.lastPrice = lastPrice;
+        return holding;
+    }
+
+    private static Position position(String token, int netQuantity, double lastPrice, double pnl) {
+        Position position = new Position();
+        position.instrumentToken = token;
+        position.tradingSymbol = "SYM" + token;
+        position.netQuantity = netQuantity;
+        position.lastPrice = lastPrice;
+        position.pnl = pnl;
+        return position;
+    }
+
+    @Test
+    void updatesPnlIncrementallyFromTicks() {
+        FakeTickSource feed = new FakeTickSource();
+        TickStream stream = new TickStream(feed);
+        stream.start();
+        stream.track(List.of(holding("1", 10, 100, 110), holding("2", 5, 200, 190)),
+            List.of(position("3", -2, 50, 30)));
+
+        assertEquals(Set.of(1L, 2L, 3L), feed.subscribed());
+        assertEquals(10 * 10 - 5 * 10, stream.holdingsPnl(), 1e-9);
+        assertEquals(30, stream.positionsPnl(), 1e-9);
+        assertFalse(stream.hasTick(1L));
+
+        feed.emit(1L, 120);
+        feed.emit(2L, 200);
+        feed.emit(3L, 45);
+        feed.emit(99L, 1);
+
+        assertTrue(stream.hasTick(1L));
+        assertEquals(120, stream.lastPrice(1L), 0.0);
+        assertEquals(10 * 20 + 5 * 0, stream.holdingsPnl(), 1e-9);
+        // short 2 @ REST pnl 30, price fell 5 => +10
+        assertEquals(40, stream.positionsPnl(), 1e-9);
+    }
+
+    @Test
+    void keepsStreamedPricesWhenBooksAreRefreshed() {
+        FakeTickSource feed = new FakeTickSource();
+        TickStream stream = new TickStream(feed);
+        stream.start();
+        stream.track(List.of(holding("1", 10, 100, 100)), List.of());
+        feed.emit(1L, 130);
+
+        stream.track(List.of(holding("1", 20, 100, 100), holding("2", 1, 10, 12)), List.of());
+
+        assertEquals(Set.of(1L, 2L), feed.subscribed());
+        assertEquals(20 * 30 + 2, stream.holdingsPnl(), 1e-9);
+    }
+
+    @Test
+    void concurrentTicksDoNotLoseUpdates() throws InterruptedException {
+        LastPriceTable table = new LastPriceTable();
+        table.track(new long[] {1, 2, 3, 4}, new double[] {1, 2, 3, 4}, new double[4], new double[4]);
+
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        CountDownLatch done = new CountDownLatch(4);
+        for (int t = 1; t <= 4; t++) {
+            long token = t;
+            pool.execute(() -> {
+                for (int i = 1; i <= 10_000; i++) {
+                    table.onTick(token, i);
+                }
+                done.countDown();
+            });
+        }
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        pool.shutdown();
+
+        assertEquals((1 + 2 + 3 + 4) * 10_000.0, table.totalPnl(), 1e-6);
+        assertEquals(40_000, table.getTicks());
+    }
+}
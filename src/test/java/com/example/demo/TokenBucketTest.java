@@ -0,0 +1,31 @@
+package com.example.demo;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenBucketTest {
+
+    @Test
+    void allowsBurstThenRejectsWithoutWaiting() throws InterruptedException {
+        TokenBucket bucket = new TokenBucket(1, 3);
+
+        assertTrue(bucket.acquire(0));
+        assertTrue(bucket.acquire(0));
+        assertTrue(bucket.acquire(0));
+        assertFalse(bucket.acquire(0));
+    }
+
+    @Test
+    void waitsForNextTokenWithinDeadline() throws InterruptedException {
+        TokenBucket bucket = new TokenBucket(20, 1);
+        assertTrue(bucket.acquire(0));
+
+        long start = System.nanoTime();
+        assertTrue(bucket.acquire(1_000));
+        long waitedMs = (System.nanoTime() - start) / 1_000_000;
+
+        assertTrue(waitedMs >= 30, "expected to wait for the next token, waited " + waitedMs + " ms");
+    }
+}
@@ -0,0 +1,314 @@
+package com.example.demo;
+
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Boots the server against {@link FakeKiteConnect} and calls every MCP tool from many threads
+ * at once, reporting throughput and latency percentiles per tool. The calls go through the
+ * registered tool callbacks, so JSON argument binding, response serialization, caching, request
+ * coalescing and rate limiting all take part; only Kite and the MCP transport are left out.
+ * While the test runs, ticks and order fills are pushed through a {@link FakeTickSource}.
+ *
+ * <p>Usage: {@code ToolLoadTest [clients] [seconds] [rows] [kite latency ms] [error rate]
+ * [kite rate limit/s] [max p99 ms]}. Kite latency varies between half and one and a half times
+ * the given value. With a maximum, the process exits with status 1 when a tool's p99 latency
+ * exceeds it. Run with {@code ./mvnw -Pload-test verify -DskipTests}.
+ */
+public class ToolLoadTest {
+    private static final Pattern ORDER_ID = Pattern.compile("\"order_id\":\"(\\d+)\"");
+
+    /** Relative call frequency of each tool, roughly what an assistant asks for. */
+    private static final Map<String, Integer> MIX = new LinkedHashMap<>();
+
+    static {
+        MIX.put("get_holdings", 20);
+        MIX.put("get_positions", 20);
+        MIX.put("get_margins", 10);
+        MIX.put("get_order_analysis", 8);
+        MIX.put("get_risk_analysis", 5);
+        MIX.put("get_historical_performance", 5);
+        MIX.put("place_order", 8);
+        MIX.put("await_order_fill", 8);
+        MIX.put("place_orders", 2);
+        MIX.put("get_cache_stats", 5);
+        MIX.put("get_server_metrics", 5);
+        MIX.put("list_accounts", 4);
+    }
+
+    /** The fake Kite client and tick source, replacing the real ones. Not scanned as a component. */
+    static class LoadTestBeans {
+
+        @Bean
+        public FakeKiteConnect fakeKiteConnect(@Value("${load.rows}") int rows,
+                                               @Value("${load.kite-latency-ms}") long latencyMs,
+                                               @Value("${load.error-rate}") double errorRate,
+                                               @Value("${load.kite-rate-limit}") double rateLimit) {
+            return FakeKiteConnect.withPortfolio(rows, 42)
+                .withLatency(latencyMs / 2, latencyMs * 3 / 2)
+                .withErrorRate(errorRate)
+                .withRateLimit(rateLimit);
+        }
+
+        @Bean
+        public TickFeed tickFeed() {
+            return new TickFeed();
+        }
+
+        @Bean
+        @Primary
+        public KiteConnectFactory fakeKiteConnectFactory(FakeKiteConnect kite) {
+            return apiKey -> kite;
+        }
+
+        @Bean
+        @Primary
+        public TickSourceFactory fakeTickSourceFactory(FakeKiteConnect kite, TickFeed feed) {
+            return (accessToken, apiKey) -> {
+                FakeTickSource source = new FakeTickSource();
+                kite.setOrderFeed(source::emitOrder);
+                feed.current = source;
+                return source;
+            };
+        }
+    }
+
+    /** The tick source of the current session. */
+    static class TickFeed {
+        volatile FakeTickSource current;
+    }
+
+    /** Latency samples and failures of one tool. */
+    static class ToolStats {
+        private long[] nanos = new long[1024];
+        private int count;
+        private int failures;
+
+        synchronized void record(long elapsedNanos, boolean failed) {
+            if (count == nanos.length) {
+                nanos = Arrays.copyOf(nanos, count * 2);
+            }
+            nanos[count++] = elapsedNanos;
+            if (failed) {
+                failures++;
+            }
+        }
+
+        synchronized long[] sorted() {
+            long[] copy = Arrays.copyOf(nanos, count);
+            Arrays.sort(copy);
+            return copy;
+        }
+
+        synchronized int failures() {
+            return failures;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 30;
+        int rows = args.length > 2 ? Integer.parseInt(args[2]) : 50;
+        long latencyMs = args.length > 3 ? Long.parseLong(args[3]) : 40;
+        double errorRate = args.length > 4 ? Double.parseDouble(args[4]) : 0.01;
+        double rateLimit = args.length > 5 ? Double.parseDouble(args[5]) : 0;
+        long maxP99Ms = args.length > 6 && !args[6].isBlank() ? Long.parseLong(args[6]) : Long.MAX_VALUE;
+
+        Path workDir = Files.createTempDirectory("kite-load-test");
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(DemoApplication.class,
+            LoadTestBeans.class)
+            .properties(
+                "spring.ai.mcp.server.enabled=false",
+                "kite.api.key=load-test",
+                "kite.api.secret=load-test",
+                "kite.warm-state.file=",
+                "kite.metrics.dump-file=",
+                "kite.candles.dir=" + workDir.resolve("candles"),
+                "kite.instruments.snapshot=" + workDir.resolve("instruments.bin"),
+                "load.rows=" + rows,
+                "load.kite-latency-ms=" + latencyMs,
+                "load.error-rate=" + errorRate,
+                "load.kite-rate-limit=" + rateLimit)
+            .run();
+        boolean regressed;
+        ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor();
+        try {
+            @SuppressWarnings("unchecked")
+            List<ToolCallback> callbacks = context.getBean("mcpTools", List.class);
+            Map<String, ToolCallback> tools = new LinkedHashMap<>();
+            for (ToolCallback callback : callbacks) {
+                tools.put(callback.getToolDefinition().name(), callback);
+            }
+            String login = tools.get("generate_session").call("{\"requestToken\":\"load-test\"}");
+            if (!login.contains("\"user_id\"")) {
+                throw new IllegalStateException("Login failed: " + login);
+            }
+
+            // Prices move a few times per millisecond across the portfolio, as in a busy market
+            TickFeed feed = context.getBean(TickFeed.class);
+            double[] prices = new double[rows];
+            Arrays.fill(prices, 100);
+            ticker.scheduleAtFixedRate(() -> {
+                FakeTickSource source = feed.current;
+                if (source == null || rows == 0) {
+                    return;
+                }
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < 5; i++) {
+                    int row = random.nextInt(rows);
+                    prices[row] *= 1 + (random.nextDouble() - 0.5) / 500;
+                    source.emit(100_000 + row, prices[row]);
+                }
+            }, 0, 2, TimeUnit.MILLISECONDS);
+
+            Workload workload = new Workload(tools, rows);
+            // One pass before measuring fills the candle store, which is a one-off cost per day
+            for (String tool : MIX.keySet()) {
+                workload.call(tool, null);
+            }
+            tools.get("get_risk_analysis").call("{\"includeHistoricalRisk\":true,\"lookbackDays\":90}");
+
+            Map<String, ToolStats> stats = new LinkedHashMap<>();
+            for (String tool : MIX.keySet()) {
+                stats.put(tool, new ToolStats());
+            }
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+            List<Thread> workers = new ArrayList<>(clients);
+            for (int i = 0; i < clients; i++) {
+                Thread worker = new Thread(() -> {
+                    while (System.nanoTime() < deadline) {
+                        workload.call(workload.pick(), stats);
+                    }
+                }, "load-client-" + i);
+                worker.start();
+                workers.add(worker);
+            }
+            for (Thread worker : workers) {
+                worker.join();
+            }
+
+            regressed = report(stats, seconds, maxP99Ms);
+            System.out.println("kite " + context.getBean(FakeKiteConnect.class).stats());
+        } finally {
+            ticker.shutdownNow();
+            context.close();
+        }
+        System.exit(regressed ? 1 : 0);
+    }
+
+    /** Builds the arguments of each call and carries placed order IDs over to await_order_fill. */
+    static class Workload {
+        private final Map<String, ToolCallback> tools;
+        private final int rows;
+        private final int totalWeight;
+        private final ConcurrentLinkedQueue<String> placed = new ConcurrentLinkedQueue<>();
+
+        Workload(Map<String, ToolCallback> tools, int rows) {
+            this.tools = tools;
+            this.rows = rows;
+            this.totalWeight = MIX.values().stream().mapToInt(Integer::intValue).sum();
+        }
+
+        String pick() {
+            int roll = ThreadLocalRandom.current().nextInt(totalWeight);
+            for (Map.Entry<String, Integer> entry : MIX.entrySet()) {
+                roll -= entry.getValue();
+                if (roll < 0) {
+                    return entry.getKey();
+                }
+            }
+            throw new IllegalStateException();
+        }
+
+        void call(String tool, Map<String, ToolStats> stats) {
+            String orderId = null;
+            if (tool.equals("await_order_fill")) {
+                orderId = placed.poll();
+                if (orderId == null) {
+                    tool = "place_order";
+                }
+            }
+            String input = arguments(tool, orderId);
+            long start = System.nanoTime();
+            String response;
+            try {
+                response = tools.get(tool).call(input);
+            } catch (RuntimeException e) {
+                response = "{\"status\":\"failed\",\"error\":\"" + e + "\"}";
+            }
+            long elapsed = System.nanoTime() - start;
+            if (stats != null) {
+                stats.get(tool).record(elapsed, response.contains("\"status\":\"failed\""));
+            }
+            if (tool.equals("place_order")) {
+                Matcher matcher = ORDER_ID.matcher(response);
+                if (matcher.find()) {
+                    placed.add(matcher.group(1));
+                }
+            }
+        }
+
+        private String arguments(String tool, String orderId) {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            String symbol = "SYM" + random.nextInt(Math.max(1, rows));
+            String order = "{\"tradingSymbol\":\"" + symbol + "\",\"transactionType\":\"BUY\",\"quantity\":1,"
+                + "\"price\":" + (100 + random.nextInt(100)) + ".5,\"product\":\"CNC\"}";
+            LocalDate today = LocalDate.now();
+            return switch (tool) {
+                case "get_holdings", "get_positions" -> random.nextBoolean()
+                    ? "{}" : "{\"limit\":20,\"fields\":\"trading_symbol,pnl\"}";
+                case "get_margins" -> "{\"segment\":\"equity\"}";
+                case "get_risk_analysis" -> "{\"includeHistoricalRisk\":" + random.nextBoolean()
+                    + ",\"lookbackDays\":90}";
+                case "get_historical_performance" -> "{\"fromDate\":\"" + today.minusDays(30)
+                    + "\",\"toDate\":\"" + today + "\"}";
+                case "place_order" -> order;
+                case "place_orders" -> "{\"orders\":[" + order + "," + order + "," + order + "]}";
+                case "await_order_fill" -> "{\"orderId\":\"" + orderId + "\",\"timeoutSeconds\":5}";
+                default -> "{}";
+            };
+        }
+    }
+
+    private static boolean report(Map<String, ToolStats> stats, int seconds, long maxP99Ms) {
+        boolean regressed = false;
+        System.out.printf("%-28s %8s %7s %9s %9s %9s %9s%n", "tool", "calls", "errors", "calls/s",
+            "p50 ms", "p99 ms", "max ms");
+        for (Map.Entry<String, ToolStats> entry : stats.entrySet()) {
+            long[] sorted = entry.getValue().sorted();
+            if (sorted.length == 0) {
+                continue;
+            }
+            double p50 = sorted[(sorted.length - 1) / 2] / 1e6;
+            double p99 = sorted[(int) Math.ceil(sorted.length * 0.99) - 1] / 1e6;
+            double max = sorted[sorted.length - 1] / 1e6;
+            System.out.printf("%-28s %8d %7d %9.1f %9.2f %9.2f %9.2f%n", entry.getKey(), sorted.length,
+                entry.getValue().failures(), sorted.length / (double) seconds, p50, p99, max);
+            if (p99 > maxP99Ms) {
+                System.out.printf("%-28s p99 latency exceeds %d ms%n", entry.getKey(), maxP99Ms);
+                regressed = true;
+            }
+        }
+        return regressed;
+    }
+}
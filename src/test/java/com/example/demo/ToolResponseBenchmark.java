@@ -0,0 +1,180 @@
+package com.example.demo;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zerodhatech.kiteconnect.kitehttp.exceptions.KiteException;
+import com.zerodhatech.models.Holding;
+import com.zerodhatech.models.Order;
+import com.zerodhatech.models.Position;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Response construction plus JSON serialization for get_holdings, get_positions and
+ * get_order_analysis. The {@code *Maps} benchmarks reproduce the original per-row
+ * {@code HashMap} responses as a baseline for the typed rows in {@link PortfolioRows} and
+ * the incremental {@link OrderBook}.
+ *
+ * <p>Run with {@code ./mvnw -Pbenchmark verify}; the gc profiler reports allocation per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ToolResponseBenchmark {
+
+    @Param({"10", "100", "1000", "5000"})
+    public int rows;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private List<Holding> holdings;
+    private Map<String, List<Position>> positions;
+    private List<Order> orders;
+    private final OrderBook orderBook = new OrderBook();
+
+    @Setup
+    public void setUp() throws KiteException {
+        FakeKiteConnect kite = FakeKiteConnect.withPortfolio(rows, 42);
+        holdings = kite.getHoldings();
+        positions = kite.getPositions();
+        orders = kite.getOrders();
+        orderBook.sync(orders);
+    }
+
+    @Benchmark
+    public String holdingsMaps() throws Exception {
+        List<Map<String, Object>> holdingsList = new ArrayList<>();
+        for (Holding holding : holdings) {
+            Map<String, Object> holdingData = new HashMap<>();
+            holdingData.put("trading_symbol", holding.tradingSymbol);
+            holdingData.put("day_change", holding.dayChange);
+            holdingData.put("day_change_percentage", holding.dayChangePercentage);
+            holdingData.put("quantity", holding.quantity);
+            holdingData.put("average_price", holding.averagePrice);
+            holdingData.put("last_price", holding.lastPrice);
+            holdingData.put("pnl", holding.quantity * (holding.lastPrice - holding.averagePrice));
+            holdingsList.add(holdingData);
+        }
+        Map<String, Object> response = new HashMap<>();
+        response.put("total_holdings", holdings.size());
+        response.put("holdings", holdingsList);
+        response.put("status", "success");
+        return mapper.writeValueAsString(response);
+    }
+
+    @Benchmark
+    public String holdingsRows() throws Exception {
+        PortfolioRows.Holdings rows = PortfolioRows.holdings(holdings, null);
+        Map<String, Object> response = new HashMap<>();
+        response.put("total_holdings", holdings.size());
+        response.put("holdings", rows.rows());
+        response.put("total_pnl", rows.totalPnl());
+        response.put("status", "success");
+        return mapper.writeValueAsString(response);
+    }
+
+    @Benchmark
+    public String positionsMaps() throws Exception {
+        List<Map<String, Object>> netPositions = new ArrayList<>();
+        for (Position position : positions.get("net")) {
+            if (position.netQuantity != 0) {
+                Map<String, Object> posData = new HashMap<>();
+                posData.put("trading_symbol", position.tradingSymbol);
+                posData.put("quantity", position.netQuantity);
+                posData.put("average_price", position.averagePrice);
+                posData.put("last_price", position.lastPrice);
+                posData.put("pnl", position.pnl);
+                posData.put("unrealised", position.unrealised);
+                posData.put("realised", position.realised);
+                posData.put("product", position.product);
+                posData.put("instrument_token", position.instrumentToken);
+                netPositions.add(posData);
+            }
+        }
+        List<Map<String, Object>> dayPositions = new ArrayList<>();
+        for (Position position : positions.get("day")) {
+            if (position.netQuantity != 0) {
+                Map<String, Object> posData = new HashMap<>();
+                posData.put("trading_symbol", position.tradingSymbol);
+                posData.put("quantity", position.netQuantity);
+                posData.put("average_price", position.averagePrice);
+                posData.put("last_price", position.lastPrice);
+                posData.put("pnl", position.pnl);
+                posData.put("product", position.product);
+                dayPositions.add(posData);
+            }
+        }
+        double totalPnl = netPositions.stream()
+            .mapToDouble(pos -> (Double) pos.get("pnl"))
+            .sum();
+        double totalUnrealised = netPositions.stream()
+            .mapToDouble(pos -> (Double) pos.get("unrealised"))
+            .sum();
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("net_positions", netPositions);
+        result.put("day_positions", dayPositions);
+        result.put("total_positions", netPositions.size());
+        result.put("total_pnl", totalPnl);
+        result.put("total_unrealised_pnl", totalUnrealised);
+        result.put("status", "success");
+        return mapper.writeValueAsString(result);
+    }
+
+    @Benchmark
+    public String positionsRows() throws Exception {
+        PortfolioRows.NetPositions netPositions = PortfolioRows.netPositions(positions.get("net"), null);
+        List<PortfolioRows.DayPositionRow> dayPositions = PortfolioRows.dayPositions(positions.get("day"));
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("net_positions", netPositions.rows());
+        result.put("day_positions", dayPositions);
+        result.put("total_positions", netPositions.rows().size());
+        result.put("total_pnl", netPositions.totalPnl());
+        result.put("total_unrealised_pnl", netPositions.totalUnrealised());
+        result.put("status", "success");
+        return mapper.writeValueAsString(result);
+    }
+
+    @Benchmark
+    public String orderAnalysisMaps() throws Exception {
+        Map<String, Object> response = new HashMap<>();
+        Map<String, Integer> symbolOrderCount = new HashMap<>();
+        Map<String, Double> symbolTotalValue = new HashMap<>();
+        for (Order order : orders) {
+            symbolOrderCount.merge(order.tradingSymbol, 1, Integer::sum);
+            symbolTotalValue.merge(
+                order.tradingSymbol,
+                Double.parseDouble(order.quantity) * Double.parseDouble(order.price),
+                Double::sum
+            );
+        }
+        response.put("total_orders", orders.size());
+        response.put("symbol_order_count", symbolOrderCount);
+        response.put("symbol_total_value", symbolTotalValue);
+        return mapper.writeValueAsString(response);
+    }
+
+    /** A repeated call against an already synced book: no order has changed since. */
+    @Benchmark
+    public String orderAnalysisIncremental() throws Exception {
+        orderBook.sync(orders);
+        return mapper.writeValueAsString(orderBook.analysis());
+    }
+}
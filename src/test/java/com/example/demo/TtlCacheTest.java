@@ -0,0 +1,82 @@
+package com.example.demo;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class TtlCacheTest {
+
+    @Test
+    void servesCachedValueUntilInvalidated() throws Throwable {
+        TtlCache<String, Integer> cache = new TtlCache<>("test", 60_000, 8);
+        AtomicInteger loads = new AtomicInteger();
+
+        assertEquals(1, cache.get("a", loads::incrementAndGet));
+        assertEquals(1, cache.get("a", loads::incrementAndGet));
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+
+        cache.invalidateAll();
+        assertEquals(2, cache.get("a", loads::incrementAndGet));
+    }
+
+    @Test
+    void reloadsAfterTtlExpires() throws Throwable {
+        TtlCache<String, Integer> cache = new TtlCache<>("test", 0, 8);
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get("a", loads::incrementAndGet);
+        cache.get("a", loads::incrementAndGet);
+
+        assertEquals(2, loads.get());
+        assertEquals(0, cache.getHits());
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedEntry() throws Throwable {
+        TtlCache<String, String> cache = new TtlCache<>("test", 60_000, 2);
+
+        cache.get("a", () -> "a");
+        cache.get("b", () -> "b");
+        cache.get("a", () -> "a");
+        cache.get("c", () -> "c");
+
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictions());
+        assertEquals("a", cache.get("a", () -> "reloaded"));
+        assertEquals("reloaded", cache.get("b", () -> "reloaded"));
+    }
+
+    @Test
+    void restoredValueIsServedWithItsOriginalAge() throws Throwable {
+        TtlCache<String, Integer> cache = new TtlCache<>("test", 60_000, 8);
+        AtomicInteger changes = new AtomicInteger();
+        cache.setChangeListener(changes::incrementAndGet);
+
+        cache.restore("a", 7, 1_000L);
+        assertEquals(7, cache.get("a", () -> 8));
+        assertEquals(1_000L, cache.peek("a").fetchedAtMillis());
+        assertEquals(true, cache.peek("a").restored());
+        assertEquals(0, changes.get());
+
+        cache.refresh("a", () -> 9);
+        assertEquals(false, cache.peek("a").restored());
+        assertEquals(1, changes.get());
+    }
+
+    @Test
+    void refreshInvalidatedWhileLoadingIsNotStored() throws Throwable {
+        TtlCache<String, Integer> cache = new TtlCache<>("test", 60_000, 8);
+        cache.restore("a", 7, 1_000L);
+
+        assertEquals(8, cache.refresh("a", () -> {
+            cache.invalidateAll();
+            return 8;
+        }));
+        assertNull(cache.peek("a"));
+        assertEquals(9, cache.get("a", () -> 9));
+    }
+}
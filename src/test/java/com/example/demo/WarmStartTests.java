@@ -0,0 +1,95 @@
+package com.example.demo;
+
+import com.zerodhatech.models.Margin;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = {"spring.ai.mcp.server.stdio=false", "kite.stream.enabled=false"})
+class WarmStartTests {
+
+    /** Holds the first caller inside the restore until the test lets it go. */
+    static class BlockingWarmStateStore extends WarmStateStore {
+        final CountDownLatch loading = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        BlockingWarmStateStore(KiteExecutor kiteExecutor) {
+            super(kiteExecutor, "");
+        }
+
+        @Override
+        public List<AccountState> load() {
+            loading.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            Margin margin = new Margin();
+            margin.available = margin.new Available();
+            margin.available.cash = "10000";
+            margin.utilised = margin.new Utilised();
+            margin.utilised.debits = "0";
+            PortfolioCache.Contents portfolio = new PortfolioCache.Contents(null, null,
+                Map.of("equity", new TtlCache.Stamped<>(margin, System.currentTimeMillis(), true)));
+            return List.of(new AccountState("AB1234", FakeKiteConnect.ACCESS_TOKEN, null,
+                System.currentTimeMillis(), portfolio));
+        }
+    }
+
+    @TestConfiguration
+    static class WarmStartBeans {
+
+        @Bean
+        @Primary
+        public BlockingWarmStateStore blockingWarmStateStore(KiteExecutor kiteExecutor) {
+            return new BlockingWarmStateStore(kiteExecutor);
+        }
+
+        @Bean
+        @Primary
+        public KiteConnectFactory fakeKiteConnectFactory() {
+            FakeKiteConnect kite = FakeKiteConnect.withPortfolio(5, 42);
+            return apiKey -> kite;
+        }
+    }
+
+    @Autowired
+    private KiteTradingService service;
+
+    @Autowired
+    private BlockingWarmStateStore store;
+
+    @Test
+    void callsDuringWarmStartWaitForTheRestoredSessions() throws Exception {
+        CompletableFuture<Map<String, Object>> first =
+            CompletableFuture.supplyAsync(() -> service.getMargins("equity", null));
+        assertTrue(store.loading.await(10, TimeUnit.SECONDS));
+
+        CompletableFuture<Map<String, Object>> second = new CompletableFuture<>();
+        Thread caller = new Thread(() -> second.complete(service.getMargins("equity", null)));
+        caller.start();
+        // The second call must wait for the restore rather than find no session
+        while (caller.getState() != Thread.State.BLOCKED && caller.getState() != Thread.State.TERMINATED) {
+            Thread.onSpinWait();
+        }
+        store.release.countDown();
+
+        for (CompletableFuture<Map<String, Object>> call : List.of(first, second)) {
+            Map<String, Object> margins = call.get(10, TimeUnit.SECONDS);
+            assertEquals("success", margins.get("status"), margins.toString());
+        }
+    }
+}
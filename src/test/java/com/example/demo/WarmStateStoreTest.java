@@ -0,0 +1,103 @@
+package com.example.demo;
+
+import com.zerodhatech.models.Holding;
+import com.zerodhatech.models.Margin;
+import com.zerodhatech.models.Position;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WarmStateStoreTest {
+
+    private static final ZoneId IST = ZoneId.of("Asia/Kolkata");
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void roundTripsTokensAndPortfolio() throws Exception {
+        Holding holding = new Holding();
+        holding.tradingSymbol = "INFY";
+        holding.instrumentToken = "408065";
+        holding.quantity = 10;
+        holding.averagePrice = 1500.0;
+        holding.lastPrice = null;
+        holding.dayChange = 12.5;
+        Position position = new Position();
+        position.tradingSymbol = "NIFTY24JANFUT";
+        position.netQuantity = -50;
+        position.multiplier = 1;
+        position.pnl = 250.0;
+        Margin margin = new Margin();
+        margin.available = margin.new Available();
+        margin.available.cash = "10000.5";
+        margin.utilised = margin.new Utilised();
+        margin.utilised.debits = "200";
+
+        PortfolioCache.Contents portfolio = new PortfolioCache.Contents(
+            new TtlCache.Stamped<>(List.of(holding), 1_000L, false),
+            new TtlCache.Stamped<>(Map.of("net", List.of(position), "day", List.of()), 2_000L, false),
+            Map.of("equity", new TtlCache.Stamped<>(margin, 3_000L, false)));
+        Path file = dir.resolve("warm-state.bin");
+        WarmStateStore.writeTo(file, List.of(
+            new WarmStateStore.AccountState("AB1234", "access", "public", 42L, portfolio),
+            new WarmStateStore.AccountState("CD5678", "access2", null, 43L,
+                new PortfolioCache.Contents(null, null, Map.of()))));
+
+        List<WarmStateStore.AccountState> accounts = WarmStateStore.readFrom(file);
+        assertEquals(2, accounts.size());
+        WarmStateStore.AccountState first = accounts.get(0);
+        assertEquals("AB1234", first.accountId());
+        assertEquals("access", first.accessToken());
+        assertEquals(42L, first.loggedInAtMillis());
+
+        TtlCache.Stamped<List<Holding>> holdings = first.portfolio().holdings();
+        assertEquals(1_000L, holdings.fetchedAtMillis());
+        assertTrue(holdings.restored());
+        assertEquals("INFY", holdings.value().get(0).tradingSymbol);
+        assertEquals(1500.0, holdings.value().get(0).averagePrice);
+        assertNull(holdings.value().get(0).lastPrice);
+        assertEquals(12.5, holdings.value().get(0).dayChange);
+        Position restored = first.portfolio().positions().value().get("net").get(0);
+        assertEquals(-50, restored.netQuantity);
+        assertEquals(250.0, restored.pnl);
+        assertEquals("10000.5", first.portfolio().margins().get("equity").value().available.cash);
+
+        WarmStateStore.AccountState second = accounts.get(1);
+        assertNull(second.publicToken());
+        assertNull(second.portfolio().holdings());
+        assertTrue(second.portfolio().margins().isEmpty());
+    }
+
+    @Test
+    void tokensExpireAtSixInTheMorning() {
+        ZonedDateTime login = ZonedDateTime.of(2024, 3, 4, 21, 0, 0, 0, IST);
+        long loggedInAt = login.toInstant().toEpochMilli();
+
+        assertTrue(WarmStateStore.tokenValid(loggedInAt, login.plusHours(8)));
+        assertFalse(WarmStateStore.tokenValid(loggedInAt, login.plusHours(9)));
+        // A login after six is valid until six the next day
+        long early = login.withHour(7).toInstant().toEpochMilli();
+        assertTrue(WarmStateStore.tokenValid(early, login));
+    }
+
+    @Test
+    void unreadableSnapshotRestoresNothing() throws Exception {
+        Path file = dir.resolve("warm-state.bin");
+        Files.writeString(file, "not a snapshot");
+        WarmStateStore store = new WarmStateStore(new KiteExecutor(2, 1, 1000), file.toString());
+
+        assertTrue(store.load().isEmpty());
+    }
+}